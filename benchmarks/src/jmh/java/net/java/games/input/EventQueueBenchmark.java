@@ -0,0 +1,117 @@
+/*
+ * %W% %E%
+ *
+ * Copyright 2002 Sun Microsystems, Inc. All rights reserved.
+ * SUN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+/*****************************************************************************
+ * Copyright (c) 2003 Sun Microsystems, Inc.  All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * - Redistribution of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * <p>
+ * - Redistribution in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materails provided with the distribution.
+ * <p>
+ * Neither the name Sun Microsystems, Inc. or the names of the contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ * <p>
+ * This software is provided "AS IS," without a warranty of any kind.
+ * ALL EXPRESS OR IMPLIED CONDITIONS, REPRESENTATIONS AND WARRANTIES, INCLUDING
+ * ANY IMPLIED WARRANT OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE OR
+ * NON-INFRINGEMEN, ARE HEREBY EXCLUDED.  SUN MICROSYSTEMS, INC. ("SUN") AND
+ * ITS LICENSORS SHALL NOT BE LIABLE FOR ANY DAMAGES SUFFERED BY LICENSEE AS
+ * A RESULT OF USING, MODIFYING OR DESTRIBUTING THIS SOFTWARE OR ITS
+ * DERIVATIVES.  IN NO EVENT WILL SUN OR ITS LICENSORS BE LIABLE FOR ANY LOST
+ * REVENUE, PROFIT OR DATA, OR FOR DIRECT, INDIRECT, SPECIAL, CONSEQUENTIAL,
+ * INCIDENTAL OR PUNITIVE DAMAGES.  HOWEVER CAUSED AND REGARDLESS OF THE THEORY
+ * OF LIABILITY, ARISING OUT OF THE USE OF OUR INABILITY TO USE THIS SOFTWARE,
+ * EVEN IF SUN HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGES.
+ * <p>
+ * You acknowledge that this software is not designed or intended for us in
+ * the design, construction, operation or maintenance of any nuclear facility
+ *****************************************************************************/
+package net.java.games.input;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures adding events to and draining them from the locking and the
+ * lock-free event queues, both from one thread and from a producer and a
+ * consumer thread.
+ */
+@State(Scope.Group)
+public class EventQueueBenchmark {
+    private static final int BATCH = 32;
+
+    @Param({"locking", "lock-free"})
+    public String queue_type;
+
+    private EventQueue queue;
+    private final Event event = new Event();
+
+    @Setup
+    public void setup() {
+        queue = "lock-free".equals(queue_type) ? new LockFreeEventQueue(1024) : new EventQueue(1024);
+        event.set(null, 1f, 0);
+    }
+
+    @State(Scope.Thread)
+    public static class Consumer {
+        final Event event = new Event();
+        final Event[] events = new Event[BATCH];
+
+        @Setup
+        public void setup() {
+            for (int i = 0; i < events.length; i++)
+                events[i] = new Event();
+        }
+    }
+
+    @Benchmark
+    public void addThenGetNextEvent(Consumer consumer, Blackhole bh) {
+        for (int i = 0; i < BATCH; i++)
+            queue.offer(event);
+        while (queue.getNextEvent(consumer.event))
+            bh.consume(consumer.event.getValue());
+    }
+
+    @Benchmark
+    public int addThenDrainTo(Consumer consumer) {
+        for (int i = 0; i < BATCH; i++)
+            queue.offer(event);
+        return queue.drainTo(consumer.events, BATCH);
+    }
+
+    @Benchmark
+    public void addThenDrain(Blackhole bh) {
+        for (int i = 0; i < BATCH; i++)
+            queue.offer(event);
+        queue.drain((component, value, nanos) -> bh.consume(value));
+    }
+
+    @Benchmark
+    @Group("producerConsumer")
+    @GroupThreads(1)
+    public boolean produce() {
+        return queue.offer(event);
+    }
+
+    @Benchmark
+    @Group("producerConsumer")
+    @GroupThreads(1)
+    public boolean consume(Consumer consumer) {
+        return queue.getNextEvent(consumer.event);
+    }
+}
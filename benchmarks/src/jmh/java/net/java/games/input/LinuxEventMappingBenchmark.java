@@ -0,0 +1,115 @@
+/*
+ * %W% %E%
+ *
+ * Copyright 2002 Sun Microsystems, Inc. All rights reserved.
+ * SUN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+/*****************************************************************************
+ * Copyright (c) 2003 Sun Microsystems, Inc.  All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * - Redistribution of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * <p>
+ * - Redistribution in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materails provided with the distribution.
+ * <p>
+ * Neither the name Sun Microsystems, Inc. or the names of the contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ * <p>
+ * This software is provided "AS IS," without a warranty of any kind.
+ * ALL EXPRESS OR IMPLIED CONDITIONS, REPRESENTATIONS AND WARRANTIES, INCLUDING
+ * ANY IMPLIED WARRANT OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE OR
+ * NON-INFRINGEMEN, ARE HEREBY EXCLUDED.  SUN MICROSYSTEMS, INC. ("SUN") AND
+ * ITS LICENSORS SHALL NOT BE LIABLE FOR ANY DAMAGES SUFFERED BY LICENSEE AS
+ * A RESULT OF USING, MODIFYING OR DESTRIBUTING THIS SOFTWARE OR ITS
+ * DERIVATIVES.  IN NO EVENT WILL SUN OR ITS LICENSORS BE LIABLE FOR ANY LOST
+ * REVENUE, PROFIT OR DATA, OR FOR DIRECT, INDIRECT, SPECIAL, CONSEQUENTIAL,
+ * INCIDENTAL OR PUNITIVE DAMAGES.  HOWEVER CAUSED AND REGARDLESS OF THE THEORY
+ * OF LIABILITY, ARISING OUT OF THE USE OF OUR INABILITY TO USE THIS SOFTWARE,
+ * EVEN IF SUN HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGES.
+ * <p>
+ * You acknowledge that this software is not designed or intended for us in
+ * the design, construction, operation or maintenance of any nuclear facility
+ *****************************************************************************/
+package net.java.games.input;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the per event work of LinuxControllers.getNextDeviceEvent: looking
+ * up the component for a raw evdev event with LinuxEventDevice.mapDescriptor
+ * and converting its value. The device is fake, so the native read is left
+ * out and a fixed stream of gamepad events is replayed instead.
+ */
+@State(Scope.Thread)
+public class LinuxEventMappingBenchmark {
+    private static final int NUM_AXES = 6;
+    private static final int NUM_BUTTONS = 12;
+    private static final int NUM_EVENTS = 256;
+
+    private LinuxEventDevice device;
+    private final LinuxEvent[] events = new LinuxEvent[NUM_EVENTS];
+    private final Event event = new Event();
+
+    @Setup
+    public void setup() {
+        device = new LinuxEventDevice("Fake gamepad", Controller.Type.GAMEPAD);
+        LinuxAbsInfo abs_info = new LinuxAbsInfo();
+        abs_info.set(0, -32768, 32767, 16, 128);
+        for (int i = 0; i < NUM_AXES; i++)
+            register(new LinuxEventComponent(device, LinuxNativeTypesMap.getAbsAxisID(NativeDefinitions.ABS_X + i), false, NativeDefinitions.EV_ABS, NativeDefinitions.ABS_X + i, abs_info));
+        for (int i = 0; i < NUM_BUTTONS; i++)
+            register(new LinuxEventComponent(device, LinuxNativeTypesMap.getButtonID(NativeDefinitions.BTN_A + i), false, NativeDefinitions.EV_KEY, NativeDefinitions.BTN_A + i, null));
+        abs_info.set(0, -1, 1, 0, 0);
+        LinuxEventComponent hat_x = new LinuxEventComponent(device, Component.Identifier.Axis.POV, false, NativeDefinitions.EV_ABS, NativeDefinitions.ABS_HAT0X, abs_info);
+        LinuxEventComponent hat_y = new LinuxEventComponent(device, Component.Identifier.Axis.POV, false, NativeDefinitions.EV_ABS, NativeDefinitions.ABS_HAT0Y, abs_info);
+        LinuxPOV pov = new LinuxPOV(hat_x, hat_y);
+        device.registerComponent(hat_x.getDescriptor(), pov);
+        device.registerComponent(hat_y.getDescriptor(), pov);
+
+        for (int i = 0; i < events.length; i++) {
+            LinuxEvent linux_event = new LinuxEvent();
+            switch (i % 4) {
+                case 0:
+                    linux_event.set(0, i, NativeDefinitions.EV_ABS, NativeDefinitions.ABS_X + i % NUM_AXES, i * 251);
+                    break;
+                case 1:
+                    linux_event.set(0, i, NativeDefinitions.EV_ABS, NativeDefinitions.ABS_HAT0X, (i / 4) % 3 - 1);
+                    break;
+                case 2:
+                    linux_event.set(0, i, NativeDefinitions.EV_KEY, NativeDefinitions.BTN_A + i % NUM_BUTTONS, i & 1);
+                    break;
+                default:
+                    // EV_SYN/SYN_REPORT, which has no component
+                    linux_event.set(0, i, 0, 0, 0);
+                    break;
+            }
+            events[i] = linux_event;
+        }
+    }
+
+    private void register(LinuxEventComponent event_component) {
+        device.registerComponent(event_component.getDescriptor(), new LinuxComponent(event_component));
+    }
+
+    @Benchmark
+    public void mapEvents(Blackhole bh) {
+        for (LinuxEvent linux_event : events) {
+            LinuxAxisDescriptor descriptor = linux_event.getDescriptor();
+            LinuxComponent component = device.mapDescriptor(descriptor);
+            if (component != null) {
+                float value = component.convertValue(linux_event.getValue(), descriptor);
+                event.set(component, value, linux_event.getNanos());
+                bh.consume(event.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * %W% %E%
+ *
+ * Copyright 2002 Sun Microsystems, Inc. All rights reserved.
+ * SUN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+/*****************************************************************************
+ * Copyright (c) 2003 Sun Microsystems, Inc.  All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * - Redistribution of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * <p>
+ * - Redistribution in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materails provided with the distribution.
+ * <p>
+ * Neither the name Sun Microsystems, Inc. or the names of the contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ * <p>
+ * This software is provided "AS IS," without a warranty of any kind.
+ * ALL EXPRESS OR IMPLIED CONDITIONS, REPRESENTATIONS AND WARRANTIES, INCLUDING
+ * ANY IMPLIED WARRANT OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE OR
+ * NON-INFRINGEMEN, ARE HEREBY EXCLUDED.  SUN MICROSYSTEMS, INC. ("SUN") AND
+ * ITS LICENSORS SHALL NOT BE LIABLE FOR ANY DAMAGES SUFFERED BY LICENSEE AS
+ * A RESULT OF USING, MODIFYING OR DESTRIBUTING THIS SOFTWARE OR ITS
+ * DERIVATIVES.  IN NO EVENT WILL SUN OR ITS LICENSORS BE LIABLE FOR ANY LOST
+ * REVENUE, PROFIT OR DATA, OR FOR DIRECT, INDIRECT, SPECIAL, CONSEQUENTIAL,
+ * INCIDENTAL OR PUNITIVE DAMAGES.  HOWEVER CAUSED AND REGARDLESS OF THE THEORY
+ * OF LIABILITY, ARISING OUT OF THE USE OF OUR INABILITY TO USE THIS SOFTWARE,
+ * EVEN IF SUN HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGES.
+ * <p>
+ * You acknowledge that this software is not designed or intended for us in
+ * the design, construction, operation or maintenance of any nuclear facility
+ *****************************************************************************/
+package net.java.games.input;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the native code to identifier lookups in LinuxNativeTypesMap over
+ * the whole range of key, absolute and relative axis codes.
+ */
+@State(Scope.Thread)
+public class LinuxNativeTypesMapBenchmark {
+
+    @Benchmark
+    public void getButtonID(Blackhole bh) {
+        for (int i = 0; i < NativeDefinitions.KEY_MAX; i++)
+            bh.consume(LinuxNativeTypesMap.getButtonID(i));
+    }
+
+    @Benchmark
+    public void guessButtonTrait(Blackhole bh) {
+        for (int i = 0; i < NativeDefinitions.KEY_MAX; i++)
+            bh.consume(LinuxNativeTypesMap.guessButtonTrait(i));
+    }
+
+    @Benchmark
+    public void getAbsAxisID(Blackhole bh) {
+        for (int i = 0; i < NativeDefinitions.ABS_MAX; i++)
+            bh.consume(LinuxNativeTypesMap.getAbsAxisID(i));
+    }
+
+    @Benchmark
+    public void getRelAxisID(Blackhole bh) {
+        for (int i = 0; i < NativeDefinitions.REL_MAX; i++)
+            bh.consume(LinuxNativeTypesMap.getRelAxisID(i));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * %W% %E%
+ *
+ * Copyright 2002 Sun Microsystems, Inc. All rights reserved.
+ * SUN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+/*****************************************************************************
+ * Copyright (c) 2003 Sun Microsystems, Inc.  All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * - Redistribution of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * <p>
+ * - Redistribution in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materails provided with the distribution.
+ * <p>
+ * Neither the name Sun Microsystems, Inc. or the names of the contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ * <p>
+ * This software is provided "AS IS," without a warranty of any kind.
+ * ALL EXPRESS OR IMPLIED CONDITIONS, REPRESENTATIONS AND WARRANTIES, INCLUDING
+ * ANY IMPLIED WARRANT OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE OR
+ * NON-INFRINGEMEN, ARE HEREBY EXCLUDED.  SUN MICROSYSTEMS, INC. ("SUN") AND
+ * ITS LICENSORS SHALL NOT BE LIABLE FOR ANY DAMAGES SUFFERED BY LICENSEE AS
+ * A RESULT OF USING, MODIFYING OR DESTRIBUTING THIS SOFTWARE OR ITS
+ * DERIVATIVES.  IN NO EVENT WILL SUN OR ITS LICENSORS BE LIABLE FOR ANY LOST
+ * REVENUE, PROFIT OR DATA, OR FOR DIRECT, INDIRECT, SPECIAL, CONSEQUENTIAL,
+ * INCIDENTAL OR PUNITIVE DAMAGES.  HOWEVER CAUSED AND REGARDLESS OF THE THEORY
+ * OF LIABILITY, ARISING OUT OF THE USE OF OUR INABILITY TO USE THIS SOFTWARE,
+ * EVEN IF SUN HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGES.
+ * <p>
+ * You acknowledge that this software is not designed or intended for us in
+ * the design, construction, operation or maintenance of any nuclear facility
+ *****************************************************************************/
+package net.java.games.input;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures LinuxPOV.convertValue by walking a hat switch of a fake device
+ * through all nine of its positions.
+ */
+@State(Scope.Thread)
+public class LinuxPOVBenchmark {
+    private LinuxPOV pov;
+    private LinuxAxisDescriptor descriptor_x;
+    private LinuxAxisDescriptor descriptor_y;
+
+    @Setup
+    public void setup() {
+        LinuxEventDevice device = new LinuxEventDevice("Fake hat switch", Controller.Type.STICK);
+        LinuxAbsInfo abs_info = new LinuxAbsInfo();
+        abs_info.set(0, -1, 1, 0, 0);
+        LinuxEventComponent hat_x = new LinuxEventComponent(device, Component.Identifier.Axis.POV, false, NativeDefinitions.EV_ABS, NativeDefinitions.ABS_HAT0X, abs_info);
+        LinuxEventComponent hat_y = new LinuxEventComponent(device, Component.Identifier.Axis.POV, false, NativeDefinitions.EV_ABS, NativeDefinitions.ABS_HAT0Y, abs_info);
+        pov = new LinuxPOV(hat_x, hat_y);
+        descriptor_x = hat_x.getDescriptor();
+        descriptor_y = hat_y.getDescriptor();
+    }
+
+    @Benchmark
+    public void convertValue(Blackhole bh) {
+        for (int y = -1; y <= 1; y++) {
+            bh.consume(pov.convertValue(y, descriptor_y));
+            for (int x = -1; x <= 1; x++)
+                bh.consume(pov.convertValue(x, descriptor_x));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * %W% %E%
+ *
+ * Copyright 2002 Sun Microsystems, Inc. All rights reserved.
+ * SUN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+/*****************************************************************************
+ * Copyright (c) 2003 Sun Microsystems, Inc.  All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * - Redistribution of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * <p>
+ * - Redistribution in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materails provided with the distribution.
+ * <p>
+ * Neither the name Sun Microsystems, Inc. or the names of the contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ * <p>
+ * This software is provided "AS IS," without a warranty of any kind.
+ * ALL EXPRESS OR IMPLIED CONDITIONS, REPRESENTATIONS AND WARRANTIES, INCLUDING
+ * ANY IMPLIED WARRANT OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE OR
+ * NON-INFRINGEMEN, ARE HEREBY EXCLUDED.  SUN MICROSYSTEMS, INC. ("SUN") AND
+ * ITS LICENSORS SHALL NOT BE LIABLE FOR ANY DAMAGES SUFFERED BY LICENSEE AS
+ * A RESULT OF USING, MODIFYING OR DESTRIBUTING THIS SOFTWARE OR ITS
+ * DERIVATIVES.  IN NO EVENT WILL SUN OR ITS LICENSORS BE LIABLE FOR ANY LOST
+ * REVENUE, PROFIT OR DATA, OR FOR DIRECT, INDIRECT, SPECIAL, CONSEQUENTIAL,
+ * INCIDENTAL OR PUNITIVE DAMAGES.  HOWEVER CAUSED AND REGARDLESS OF THE THEORY
+ * OF LIABILITY, ARISING OUT OF THE USE OF OUR INABILITY TO USE THIS SOFTWARE,
+ * EVEN IF SUN HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGES.
+ * <p>
+ * You acknowledge that this software is not designed or intended for us in
+ * the design, construction, operation or maintenance of any nuclear facility
+ *****************************************************************************/
+package net.java.games.input;
+
+import java.io.IOException;
+
+/**
+ * A controller without a device behind it. Every poll reports one event per
+ * component, toggling absolute components between 0 and 1 and moving
+ * relative components by one unit, so no event is filtered as a duplicate.
+ */
+final class SyntheticController extends AbstractController {
+    private int next_component;
+    private int events_left;
+    private long nanos;
+
+    SyntheticController(String name, int num_components) {
+        super(name, createComponents(num_components), new Controller[]{}, new Rumbler[]{});
+    }
+
+    private static Component[] createComponents(int num_components) {
+        Component.Identifier[] ids = {
+                Component.Identifier.Axis.X, Component.Identifier.Axis.Y, Component.Identifier.Axis.Z,
+                Component.Identifier.Axis.RX, Component.Identifier.Axis.RY, Component.Identifier.Axis.RZ,
+                Component.Identifier.Button._0, Component.Identifier.Button._1
+        };
+        Component[] components = new Component[num_components];
+        for (int i = 0; i < components.length; i++) {
+            Component.Identifier id = ids[i % ids.length];
+            components[i] = new SyntheticComponent(id.getName() + " " + i, id, i % 4 == 3);
+        }
+        return components;
+    }
+
+    void pollDevice() {
+        next_component = 0;
+        events_left = getComponents().length;
+    }
+
+    protected boolean getNextDeviceEvent(Event event) {
+        if (events_left == 0)
+            return false;
+        events_left--;
+        SyntheticComponent component = (SyntheticComponent) getComponents()[next_component++];
+        event.set(component, component.nextValue(), nanos++);
+        return true;
+    }
+
+    private static final class SyntheticComponent extends AbstractComponent {
+        private final boolean relative;
+        private float value;
+
+        SyntheticComponent(String name, Identifier id, boolean relative) {
+            super(name, id);
+            this.relative = relative;
+        }
+
+        public boolean isRelative() {
+            return relative;
+        }
+
+        float nextValue() {
+            if (relative)
+                return 1f;
+            value = 1f - value;
+            return value;
+        }
+
+        protected float poll() throws IOException {
+            return value;
+        }
+    }
+}
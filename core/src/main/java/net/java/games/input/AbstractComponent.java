@@ -51,6 +51,9 @@ public abstract class AbstractComponent implements Component {
 
     private final Identifier id;
 
+    /* Position of the component in its controller, set by AbstractController */
+    private int index = -1;
+
     private boolean has_polled;
     private float value;
     private float event_value;
@@ -119,6 +122,19 @@ public abstract class AbstractComponent implements Component {
         this.value = value;
     }
 
+    /**
+     * Returns the position of this component in its controller.
+     *
+     * @return -1 if the component does not belong to a controller
+     */
+    public final int getIndex() {
+        return index;
+    }
+
+    final void setIndex(int index) {
+        this.index = index;
+    }
+
     final void resetHasPolled() {
         has_polled = false;
     }
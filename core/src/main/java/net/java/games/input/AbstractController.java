@@ -42,8 +42,8 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * An AbstractController is a skeleton implementation of a controller that
@@ -52,7 +52,8 @@ import java.util.Map;
 public abstract class AbstractController implements Controller {
     final static int EVENT_QUEUE_DEPTH = 32;
 
-    private final static Event event = new Event();
+    /* Scratch event, guarded by the controller monitor */
+    private final Event event = new Event();
 
     /**
      * Human-readable name for this Controller
@@ -76,13 +77,22 @@ public abstract class AbstractController implements Controller {
     private final Rumbler[] rumblers;
 
     /**
-     * Map from Component.Identifiers to Components
+     * Components indexed by the ordinal of their identifier
      */
-    private final Map<Identifier, Component> id_to_components = new HashMap<>();
+    @NotNull
+    private final Component[] components_by_ordinal;
 
     @NotNull
     private EventQueue event_queue = new EventQueue(EVENT_QUEUE_DEPTH);
 
+    /* Whether events are reported for each component, indexed by component
+     * index, or null to report all events
+     */
+    private boolean[] component_filter;
+
+    /* Created when the first subscriber arrives */
+    private volatile InputEventPublisher publisher;
+
     /**
      * Protected constructor for a controller containing the specified
      * axes, child controllers, and rumblers
@@ -97,9 +107,18 @@ public abstract class AbstractController implements Controller {
         this.components = components;
         this.children = children;
         this.rumblers = rumblers;
+        int max_ordinal = -1;
+        for (Component component : components) {
+            if (component.getIdentifier() != null)
+                max_ordinal = Math.max(max_ordinal, component.getIdentifier().getOrdinal());
+        }
+        this.components_by_ordinal = new Component[max_ordinal + 1];
         // process from last to first to let earlier listed Components get higher priority
         for (int i = components.length - 1; i >= 0; i--) {
-            id_to_components.put(components[i].getIdentifier(), components[i]);
+            Identifier id = components[i].getIdentifier();
+            if (id != null)
+                components_by_ordinal[id.getOrdinal()] = components[i];
+            ((AbstractComponent) components[i]).setIndex(i);
         }
     }
 
@@ -138,7 +157,10 @@ public abstract class AbstractController implements Controller {
     @NotNull
     @Override
     public final Component getComponent(Identifier id) {
-        return id_to_components.get(id);
+        if (id == null)
+            return null;
+        int ordinal = id.getOrdinal();
+        return ordinal < components_by_ordinal.length ? components_by_ordinal[ordinal] : null;
     }
 
     /**
@@ -208,27 +230,135 @@ public abstract class AbstractController implements Controller {
         }
     }
 
+    /**
+     * Creates a new EventQueue with the given overflow policy. Events in old queue are lost.
+     */
+    @Override
+    public final void setEventQueueSize(int size, EventQueue.OverflowPolicy policy, int max_size) {
+        try {
+            setDeviceEventQueueSize(size);
+            event_queue = new EventQueue(size, policy, max_size);
+        } catch (IOException e) {
+            ControllerEnvironment.logln("Failed to create new event queue of size " + size + ": " + e);
+        }
+    }
+
+    /**
+     * Creates a new LockFreeEventQueue. Events in old queue are lost.
+     */
+    @Override
+    public final void setLockFreeEventQueueSize(int size) {
+        try {
+            setDeviceEventQueueSize(size);
+            event_queue = new LockFreeEventQueue(size);
+        } catch (IOException e) {
+            ControllerEnvironment.logln("Failed to create new lock-free event queue of size " + size + ": " + e);
+        }
+    }
+
     /**
      * Plugins override this method to adjust their internal event queue size
      */
     void setDeviceEventQueueSize(int size) throws IOException {
     }
 
+    /**
+     * Filters the events of this controller by component identifier. Events
+     * of other components are skipped as soon as they are read, before they
+     * are queued or change any component state.
+     */
+    @Override
+    public final synchronized void setComponentFilter(Set<Identifier> identifiers) {
+        Set<Component> wanted = null;
+        boolean[] filter = null;
+        if (identifiers != null) {
+            wanted = new HashSet<>();
+            filter = new boolean[components.length];
+            for (int i = 0; i < components.length; i++) {
+                Identifier id = components[i].getIdentifier();
+                if (id != null && identifiers.contains(id)) {
+                    wanted.add(components[i]);
+                    filter[i] = true;
+                }
+            }
+        }
+        component_filter = filter;
+        try {
+            setDeviceComponentFilter(wanted);
+        } catch (IOException e) {
+            ControllerEnvironment.logln("Failed to set device component filter, filtering events in Java: " + e);
+        }
+    }
+
+    /**
+     * Plugins override this method to stop the device from reporting events
+     * of components not in the set, or to report all events if it is null
+     */
+    void setDeviceComponentFilter(Set<Component> components) throws IOException {
+    }
+
     @NotNull
     @Override
     public final EventQueue getEventQueue() {
         return event_queue;
     }
 
+    /**
+     * Subscribes to the events of this controller. Events are pushed to the
+     * subscriber whenever the controller is polled.
+     */
+    @Override
+    public final void subscribe(@NotNull InputEventPublisher.Subscriber subscriber) {
+        InputEventPublisher publisher;
+        synchronized (this) {
+            if (this.publisher == null)
+                this.publisher = new InputEventPublisher();
+            publisher = this.publisher;
+        }
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Copies the poll data of every component into the state. Synchronized
+     * so that the snapshot never sees a half-finished poll.
+     */
+    @NotNull
+    @Override
+    public final synchronized ControllerState snapshot(ControllerState reuse) {
+        ControllerState state = reuse != null && reuse.size() == components.length ? reuse : new ControllerState(components.length);
+        for (int i = 0; i < components.length; i++)
+            state.setValue(i, components[i].getPollData());
+        state.setNanos(System.nanoTime());
+        return state;
+    }
+
     protected abstract boolean getNextDeviceEvent(Event event) throws IOException;
 
     void pollDevice() throws IOException {
     }
 
-    /* poll() is synchronized to protect the static event */
+    /* poll() is synchronized to protect the scratch event and the component state */
     @Override
     public synchronized boolean poll() {
+        return pollEvents(null);
+    }
+
+    /* poll(EventBuffer) is synchronized to protect the scratch event and the component state */
+    @Override
+    public synchronized boolean poll(@NotNull EventBuffer buffer) {
+        return pollEvents(buffer);
+    }
+
+    /**
+     * Polls the device, adding its events to the buffer if one is given and
+     * to the event queue otherwise.
+     */
+    private boolean pollEvents(EventBuffer buffer) {
         Component[] components = getComponents();
+        boolean[] component_filter = this.component_filter;
+        InputEventPublisher publisher = this.publisher;
+        if (publisher != null && !publisher.hasSubscribers())
+            publisher = null;
         try {
             pollDevice();
             for (Component component1 : components) {
@@ -242,6 +372,8 @@ public abstract class AbstractController implements Controller {
             }
             while (getNextDeviceEvent(event)) {
                 AbstractComponent component = (AbstractComponent) event.getComponent();
+                if (component_filter != null && !component_filter[component.getIndex()])
+                    continue;
                 float value = event.getValue();
                 if (component.isRelative()) {
                     if (value == 0)
@@ -252,12 +384,20 @@ public abstract class AbstractController implements Controller {
                         continue;
                     component.setEventValue(value);
                 }
-                if (!event_queue.isFull())
-                    event_queue.add(event);
+                if (buffer != null)
+                    buffer.add(component.getIndex(), value, event.getNanos());
+                else
+                    event_queue.offer(event);
+                if (publisher != null)
+                    publisher.offer(new InputEvent(this, component, value, event.getNanos()));
             }
+            if (publisher != null)
+                publisher.flush();
             return true;
         } catch (IOException e) {
             ControllerEnvironment.logln("Failed to poll device: " + e.getMessage());
+            if (this.publisher != null)
+                this.publisher.error(e);
             return false;
         }
     }
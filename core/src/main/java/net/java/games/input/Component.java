@@ -37,6 +37,8 @@
  *****************************************************************************/
 package net.java.games.input;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * An axis is a single button, slider, or dial, which has a single range.  An
  * axis can hold information for motion (linear or rotational), velocity,
@@ -86,21 +88,48 @@ public interface Component {
      */
     String getName();
 
+    /**
+     * Returns the position of this component in {@link Controller#getComponents()}
+     * of its controller. The index is stable for the lifetime of the controller,
+     * so callers can use it to keep per-component state in arrays.
+     */
+    int getIndex();
+
     /**
      * Identifiers for different Axes.
      */
     class Identifier {
 
+        /**
+         * Source of identifier ordinals
+         */
+        private static final AtomicInteger next_ordinal = new AtomicInteger();
+
         /**
          * Name of axis type
          */
         private final String name;
 
+        /**
+         * Dense, JVM-wide number of this identifier
+         */
+        private final int ordinal;
+
         /**
          * Protected constructor
          */
         Identifier(String name) {
             this.name = name;
+            this.ordinal = next_ordinal.getAndIncrement();
+        }
+
+        /**
+         * Returns the ordinal of this identifier. Ordinals are small, distinct
+         * integers assigned as the identifier constants are created, so they
+         * can be used to index arrays. They are not stable between runs.
+         */
+        public final int getOrdinal() {
+            return ordinal;
         }
 
         /**
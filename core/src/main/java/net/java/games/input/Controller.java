@@ -39,6 +39,8 @@ package net.java.games.input;
 
 import net.java.games.input.Component.Identifier;
 
+import java.util.Set;
+
 /**
  * A Controller represents a physical device, such as a keyboard, mouse,
  * or joystick, or a logical grouping of related controls, such as a button
@@ -89,9 +91,38 @@ public interface Controller {
     /**
      * Polls axes for data.  Returns false if the controller is no longer valid.
      * Polling reflects the current state of the device when polled.
+     * <p>
+     * Polling is serialized per controller only: different controllers may be
+     * polled concurrently from different threads without contending for a
+     * shared lock.
      */
     boolean poll();
 
+    /**
+     * Polls axes for data like {@link #poll()}, but appends the events to the
+     * given buffer instead of the event queue.  Returns false if the
+     * controller is no longer valid.
+     */
+    boolean poll(EventBuffer buffer);
+
+    /**
+     * Subscribes to the events of this controller. Events are pushed to the
+     * subscriber, as far as it has requested them, each time the controller
+     * is polled.
+     *
+     * @see ControllerPoller
+     */
+    void subscribe(InputEventPublisher.Subscriber subscriber);
+
+    /**
+     * Copies the current value of every component into a state object,
+     * indexed by {@link Component#getIndex()}. The state passed in is reused
+     * if it has the right size, otherwise a new one is returned.
+     *
+     * @see ControllerStateBuffer
+     */
+    ControllerState snapshot(ControllerState reuse);
+
 
     /**
      * Initialized the controller event queue to a new size. Existing events
@@ -100,12 +131,45 @@ public interface Controller {
     void setEventQueueSize(int size);
 
 
+    /**
+     * Initialized the controller event queue to a new size, with the given
+     * policy for events that arrive while the queue is full. Existing events
+     * in the queue are lost.
+     *
+     * @param size     The initial size of the queue
+     * @param policy   The overflow policy of the queue
+     * @param max_size The size the queue may grow to under {@link EventQueue.OverflowPolicy#GROW}
+     */
+    void setEventQueueSize(int size, EventQueue.OverflowPolicy policy, int max_size);
+
+
+    /**
+     * Initialized the controller event queue to a new lock-free queue of at
+     * least the given size. Existing events in the queue are lost.
+     * The lock-free queue is only safe when a single thread polls the
+     * controller and a single thread reads events from the queue.
+     *
+     * @see LockFreeEventQueue
+     */
+    void setLockFreeEventQueueSize(int size);
+
+
     /**
      * Get the device event queue
      */
     EventQueue getEventQueue();
 
 
+    /**
+     * Restricts the events reported by this controller to the components
+     * with the given identifiers. Where the platform supports it, the other
+     * events are dropped by the device driver and never read at all.
+     * The poll data of the other components is no longer kept up to date
+     * from events. Passing null reports events of all components again.
+     */
+    void setComponentFilter(Set<Identifier> identifiers);
+
+
     /**
      * Returns the port type for this Controller.
      */
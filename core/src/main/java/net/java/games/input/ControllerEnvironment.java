@@ -39,7 +39,8 @@ package net.java.games.input;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 
 /**
@@ -75,7 +76,12 @@ public abstract class ControllerEnvironment {
     /**
      * List of controller listeners
      */
-    private final ArrayList controllerListeners = new ArrayList();
+    private final List<ControllerListener> controllerListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Publisher for the events of all controllers, created by the first subscriber
+     */
+    private InputEventPublisher publisher;
 
     /**
      * Protected constructor for subclassing.
@@ -106,15 +112,28 @@ public abstract class ControllerEnvironment {
      */
     public abstract Controller[] getControllers();
 
-// --Commented out by Inspection START (11/29/2015 12:48 AM):
-//    /**
-//     * Adds a listener for controller state change events.
-//     */
-//    public void addControllerListener(@NotNull ControllerListener l) {
-//        assert l != null;
-//        controllerListeners.add(l);
-//    }
-// --Commented out by Inspection STOP (11/29/2015 12:48 AM)
+    /**
+     * Subscribes to the events of every controller in this environment.
+     * Events are pushed to the subscriber as the controllers are polled.
+     */
+    public final synchronized void subscribe(@NotNull InputEventPublisher.Subscriber subscriber) {
+        if (publisher == null) {
+            publisher = new InputEventPublisher();
+            for (Controller controller : getControllers())
+                controller.subscribe(new ForwardingSubscriber(publisher));
+        }
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Adds a listener for controller state change events.
+     * Listeners may be called from a background thread of the plugin
+     * that detected the change.
+     */
+    public void addControllerListener(@NotNull ControllerListener l) {
+        assert l != null;
+        controllerListeners.add(l);
+    }
 
     /**
      * Returns the isSupported status of this environment.
@@ -123,39 +142,74 @@ public abstract class ControllerEnvironment {
      */
     protected abstract boolean isSupported();
 
-// --Commented out by Inspection START (11/29/2015 12:48 AM):
-//    /**
-//     * Removes a listener for controller state change events.
-//     */
-//    public void removeControllerListener(@NotNull ControllerListener l) {
-//        assert l != null;
-//        controllerListeners.remove(l);
-//    }
-// --Commented out by Inspection STOP (11/29/2015 12:48 AM)
-
-// --Commented out by Inspection START (11/29/2015 12:48 AM):
-//    /**
-//     * Creates and sends an event to the controller listeners that a controller
-//     * has been added.
-//     */
-//    protected void fireControllerAdded(Controller c) {
-//        ControllerEvent ev = new ControllerEvent(c);
-//        for (Object controllerListener : controllerListeners) {
-//            ((ControllerListener) controllerListener).controllerAdded(ev);
-//        }
-//    }
-// --Commented out by Inspection STOP (11/29/2015 12:48 AM)
-
-// --Commented out by Inspection START (11/29/2015 12:48 AM):
-//    /**
-//     * Creates and sends an event to the controller listeners that a controller
-//     * has been lost.
-//     */
-//    protected void fireControllerRemoved(Controller c) {
-//        ControllerEvent ev = new ControllerEvent(c);
-//        for (Object controllerListener : controllerListeners) {
-//            ((ControllerListener) controllerListener).controllerRemoved(ev);
-//        }
-//    }
-// --Commented out by Inspection STOP (11/29/2015 12:48 AM)
+    /**
+     * Removes a listener for controller state change events.
+     */
+    public void removeControllerListener(@NotNull ControllerListener l) {
+        assert l != null;
+        controllerListeners.remove(l);
+    }
+
+    /**
+     * Creates and sends an event to the controller listeners that a controller
+     * has been added. The controller also joins an existing subscription to
+     * the events of this environment.
+     */
+    protected void fireControllerAdded(Controller c) {
+        synchronized (this) {
+            if (publisher != null)
+                c.subscribe(new ForwardingSubscriber(publisher));
+        }
+        ControllerEvent ev = new ControllerEvent(c);
+        for (ControllerListener controllerListener : controllerListeners) {
+            controllerListener.controllerAdded(ev);
+        }
+    }
+
+    /**
+     * Creates and sends an event to the controller listeners that a controller
+     * has been lost.
+     */
+    protected void fireControllerRemoved(Controller c) {
+        ControllerEvent ev = new ControllerEvent(c);
+        for (ControllerListener controllerListener : controllerListeners) {
+            controllerListener.controllerRemoved(ev);
+        }
+    }
+
+    /**
+     * Forwards the events of one controller to the environment publisher,
+     * delivering them once the events of a poll have all been forwarded
+     */
+    private final static class ForwardingSubscriber implements InputEventPublisher.BatchSubscriber {
+        private final InputEventPublisher publisher;
+
+        ForwardingSubscriber(InputEventPublisher publisher) {
+            this.publisher = publisher;
+        }
+
+        @Override
+        public final void onSubscribe(InputEventPublisher.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public final void onNext(InputEvent event) {
+            publisher.offer(event);
+        }
+
+        @Override
+        public final void onBatchEnd() {
+            publisher.flush();
+        }
+
+        @Override
+        public final void onError(Throwable throwable) {
+            logln("Controller stopped publishing events: " + throwable);
+        }
+
+        @Override
+        public final void onComplete() {
+        }
+    }
 } // ControllerEnvironment
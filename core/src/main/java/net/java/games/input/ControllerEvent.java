@@ -41,7 +41,7 @@ package net.java.games.input;
 /**
  * An event that is fired when the state of a controller changes
  */
-class ControllerEvent {
+public class ControllerEvent {
 
     private final Controller controller;
 
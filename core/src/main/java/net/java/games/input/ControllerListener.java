@@ -40,7 +40,7 @@ package net.java.games.input;
 /**
  * A listener for changes in the state of controllers
  */
-interface ControllerListener {
+public interface ControllerListener {
 
     /**
      * Invoked when a controller is lost.
@@ -0,0 +1,270 @@
+/*
+ * %W% %E%
+ *
+ * Copyright 2002 Sun Microsystems, Inc. All rights reserved.
+ * SUN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+/*****************************************************************************
+ * Copyright (c) 2003 Sun Microsystems, Inc.  All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * - Redistribution of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * <p>
+ * - Redistribution in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materails provided with the distribution.
+ * <p>
+ * Neither the name Sun Microsystems, Inc. or the names of the contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ * <p>
+ * This software is provided "AS IS," without a warranty of any kind.
+ * ALL EXPRESS OR IMPLIED CONDITIONS, REPRESENTATIONS AND WARRANTIES, INCLUDING
+ * ANY IMPLIED WARRANT OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE OR
+ * NON-INFRINGEMEN, ARE HEREBY EXCLUDED.  SUN MICROSYSTEMS, INC. ("SUN") AND
+ * ITS LICENSORS SHALL NOT BE LIABLE FOR ANY DAMAGES SUFFERED BY LICENSEE AS
+ * A RESULT OF USING, MODIFYING OR DESTRIBUTING THIS SOFTWARE OR ITS
+ * DERIVATIVES.  IN NO EVENT WILL SUN OR ITS LICENSORS BE LIABLE FOR ANY LOST
+ * REVENUE, PROFIT OR DATA, OR FOR DIRECT, INDIRECT, SPECIAL, CONSEQUENTIAL,
+ * INCIDENTAL OR PUNITIVE DAMAGES.  HOWEVER CAUSED AND REGARDLESS OF THE THEORY
+ * OF LIABILITY, ARISING OUT OF THE USE OF OUR INABILITY TO USE THIS SOFTWARE,
+ * EVEN IF SUN HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGES.
+ * <p>
+ * You acknowledge that this software is not designed or intended for us in
+ * the design, construction, operation or maintenance of any nuclear facility
+ *****************************************************************************/
+package net.java.games.input;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls a set of controllers at a fixed rate on background threads.
+ * <p>
+ * A single timer thread starts every tick and hands one poll task per
+ * controller to an executor, a {@link ForkJoinPool} by default, so that
+ * controllers are polled in parallel. A controller whose previous poll is
+ * still running when its next tick comes around is skipped for that tick,
+ * and a controller whose poll fails is dropped from the rotation.
+ * <p>
+ * The poller measures how late each tick started compared to its schedule,
+ * which is the jitter an application sees on top of the tick period.
+ */
+public final class ControllerPoller {
+    @NotNull
+    private final PollTask[] tasks;
+    private final long period_nanos;
+    @NotNull
+    private final Executor executor;
+
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /* Written by the timer thread only */
+    private volatile long ticks;
+    private volatile long max_jitter_nanos;
+    private volatile long total_jitter_nanos;
+
+    private ScheduledExecutorService timer;
+    private ScheduledFuture<?> tick_future;
+    private long next_tick_nanos;
+
+    /**
+     * Creates a poller for the controllers that polls them on the common
+     * {@link ForkJoinPool}.
+     *
+     * @param controllers      The controllers to poll
+     * @param ticks_per_second How often to poll every controller
+     */
+    public ControllerPoller(@NotNull Controller[] controllers, int ticks_per_second) {
+        this(controllers, ticks_per_second, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a poller for the controllers that polls them on the given executor.
+     *
+     * @param controllers      The controllers to poll
+     * @param ticks_per_second How often to poll every controller
+     * @param executor         The executor that runs the poll tasks
+     */
+    public ControllerPoller(@NotNull Controller[] controllers, int ticks_per_second, @NotNull Executor executor) {
+        if (ticks_per_second <= 0 || ticks_per_second > TimeUnit.SECONDS.toNanos(1))
+            throw new IllegalArgumentException("ticks_per_second must be between 1 and " + TimeUnit.SECONDS.toNanos(1) + ": " + ticks_per_second);
+        this.tasks = new PollTask[controllers.length];
+        for (int i = 0; i < controllers.length; i++)
+            tasks[i] = new PollTask(controllers[i]);
+        this.period_nanos = TimeUnit.SECONDS.toNanos(1) / ticks_per_second;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts polling. Does nothing if the poller is already running.
+     */
+    public final synchronized void start() {
+        if (timer != null)
+            return;
+        timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(@NotNull Runnable runnable) {
+                Thread thread = new Thread(runnable, "ControllerPoller");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MAX_PRIORITY);
+                return thread;
+            }
+        });
+        next_tick_nanos = System.nanoTime();
+        tick_future = timer.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }, 0, period_nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops polling. Polls that are already running are allowed to finish.
+     */
+    public final synchronized void stop() {
+        if (timer == null)
+            return;
+        tick_future.cancel(false);
+        timer.shutdown();
+        timer = null;
+        tick_future = null;
+    }
+
+    /**
+     * Returns true if the poller has been started and not stopped
+     */
+    public final synchronized boolean isRunning() {
+        return timer != null;
+    }
+
+    /**
+     * Returns a state buffer that the poller publishes a snapshot of the
+     * controller to after every poll. The buffer is created on the first call.
+     *
+     * @throws IllegalArgumentException if the poller does not poll the controller
+     */
+    @NotNull
+    public final synchronized ControllerStateBuffer getStateBuffer(@NotNull Controller controller) {
+        for (PollTask task : tasks) {
+            if (task.controller == controller) {
+                if (task.state_buffer == null)
+                    task.state_buffer = new ControllerStateBuffer(controller);
+                return task.state_buffer;
+            }
+        }
+        throw new IllegalArgumentException("Controller is not polled by this poller: " + controller);
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        long jitter = Math.max(0, now - next_tick_nanos);
+        next_tick_nanos += period_nanos;
+        ticks = ticks + 1;
+        total_jitter_nanos = total_jitter_nanos + jitter;
+        if (jitter > max_jitter_nanos)
+            max_jitter_nanos = jitter;
+        for (PollTask task : tasks) {
+            if (task.invalid)
+                continue;
+            if (!task.running.compareAndSet(false, true)) {
+                skipped.incrementAndGet();
+                continue;
+            }
+            // a throw here would cancel the tick for good, so a rejected poll is only skipped
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.running.set(false);
+                skipped.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Returns the time between ticks, in nanoseconds
+     */
+    public final long getPeriodNanos() {
+        return period_nanos;
+    }
+
+    /**
+     * Returns the number of ticks since the poller was created
+     */
+    public final long getTickCount() {
+        return ticks;
+    }
+
+    /**
+     * Returns the number of controller polls that were skipped because the
+     * previous poll of the same controller was still running or the
+     * executor rejected the poll
+     */
+    public final long getSkippedCount() {
+        return skipped.get();
+    }
+
+    /**
+     * Returns the number of controllers that were dropped because their poll failed
+     */
+    public final long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Returns the largest delay between the scheduled and the actual start of a tick, in nanoseconds
+     */
+    public final long getMaxJitterNanos() {
+        return max_jitter_nanos;
+    }
+
+    /**
+     * Returns the mean delay between the scheduled and the actual start of a tick, in nanoseconds
+     */
+    public final long getMeanJitterNanos() {
+        long ticks = this.ticks;
+        return ticks == 0 ? 0 : total_jitter_nanos / ticks;
+    }
+
+    private final class PollTask implements Runnable {
+        private final Controller controller;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile boolean invalid;
+        private volatile ControllerStateBuffer state_buffer;
+
+        PollTask(Controller controller) {
+            this.controller = controller;
+        }
+
+        @Override
+        public final void run() {
+            try {
+                if (!controller.poll()) {
+                    invalid = true;
+                    failed.incrementAndGet();
+                    ControllerEnvironment.logln("Stopped polling " + controller + ": poll failed");
+                    return;
+                }
+                ControllerStateBuffer state_buffer = this.state_buffer;
+                if (state_buffer != null)
+                    state_buffer.publish();
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * %W% %E%
+ *
+ * Copyright 2002 Sun Microsystems, Inc. All rights reserved.
+ * SUN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+/*****************************************************************************
+ * Copyright (c) 2003 Sun Microsystems, Inc.  All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * - Redistribution of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * <p>
+ * - Redistribution in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materails provided with the distribution.
+ * <p>
+ * Neither the name Sun Microsystems, Inc. or the names of the contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ * <p>
+ * This software is provided "AS IS," without a warranty of any kind.
+ * ALL EXPRESS OR IMPLIED CONDITIONS, REPRESENTATIONS AND WARRANTIES, INCLUDING
+ * ANY IMPLIED WARRANT OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE OR
+ * NON-INFRINGEMEN, ARE HEREBY EXCLUDED.  SUN MICROSYSTEMS, INC. ("SUN") AND
+ * ITS LICENSORS SHALL NOT BE LIABLE FOR ANY DAMAGES SUFFERED BY LICENSEE AS
+ * A RESULT OF USING, MODIFYING OR DESTRIBUTING THIS SOFTWARE OR ITS
+ * DERIVATIVES.  IN NO EVENT WILL SUN OR ITS LICENSORS BE LIABLE FOR ANY LOST
+ * REVENUE, PROFIT OR DATA, OR FOR DIRECT, INDIRECT, SPECIAL, CONSEQUENTIAL,
+ * INCIDENTAL OR PUNITIVE DAMAGES.  HOWEVER CAUSED AND REGARDLESS OF THE THEORY
+ * OF LIABILITY, ARISING OUT OF THE USE OF OUR INABILITY TO USE THIS SOFTWARE,
+ * EVEN IF SUN HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGES.
+ * <p>
+ * You acknowledge that this software is not designed or intended for us in
+ * the design, construction, operation or maintenance of any nuclear facility
+ *****************************************************************************/
+package net.java.games.input;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The values of all components of a controller at one point in time,
+ * indexed by {@link Component#getIndex()}.
+ *
+ * @see Controller#snapshot(ControllerState)
+ * @see ControllerStateBuffer
+ */
+public final class ControllerState {
+    @NotNull
+    private final float[] values;
+    private long nanos;
+    /* Publication order, assigned by ControllerStateBuffer */
+    private long sequence;
+
+    ControllerState(int size) {
+        values = new float[size];
+    }
+
+    /**
+     * Returns the number of components in the snapshot
+     */
+    public final int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns the value of the component with the given index
+     */
+    public final float getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Returns the value of the component
+     */
+    public final float getValue(@NotNull Component component) {
+        return values[component.getIndex()];
+    }
+
+    /**
+     * Returns the {@link System#nanoTime()} at which the snapshot was taken
+     */
+    public final long getNanos() {
+        return nanos;
+    }
+
+    final void setValue(int index, float value) {
+        values[index] = value;
+    }
+
+    final void setNanos(long nanos) {
+        this.nanos = nanos;
+    }
+
+    final long getSequence() {
+        return sequence;
+    }
+
+    final void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * %W% %E%
+ *
+ * Copyright 2002 Sun Microsystems, Inc. All rights reserved.
+ * SUN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+/*****************************************************************************
+ * Copyright (c) 2003 Sun Microsystems, Inc.  All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * - Redistribution of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * <p>
+ * - Redistribution in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materails provided with the distribution.
+ * <p>
+ * Neither the name Sun Microsystems, Inc. or the names of the contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ * <p>
+ * This software is provided "AS IS," without a warranty of any kind.
+ * ALL EXPRESS OR IMPLIED CONDITIONS, REPRESENTATIONS AND WARRANTIES, INCLUDING
+ * ANY IMPLIED WARRANT OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE OR
+ * NON-INFRINGEMEN, ARE HEREBY EXCLUDED.  SUN MICROSYSTEMS, INC. ("SUN") AND
+ * ITS LICENSORS SHALL NOT BE LIABLE FOR ANY DAMAGES SUFFERED BY LICENSEE AS
+ * A RESULT OF USING, MODIFYING OR DESTRIBUTING THIS SOFTWARE OR ITS
+ * DERIVATIVES.  IN NO EVENT WILL SUN OR ITS LICENSORS BE LIABLE FOR ANY LOST
+ * REVENUE, PROFIT OR DATA, OR FOR DIRECT, INDIRECT, SPECIAL, CONSEQUENTIAL,
+ * INCIDENTAL OR PUNITIVE DAMAGES.  HOWEVER CAUSED AND REGARDLESS OF THE THEORY
+ * OF LIABILITY, ARISING OUT OF THE USE OF OUR INABILITY TO USE THIS SOFTWARE,
+ * EVEN IF SUN HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGES.
+ * <p>
+ * You acknowledge that this software is not designed or intended for us in
+ * the design, construction, operation or maintenance of any nuclear facility
+ *****************************************************************************/
+package net.java.games.input;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A triple buffer of {@link ControllerState} snapshots that lets one thread
+ * publish the state of a controller while another thread reads it, without
+ * locks and without allocating.
+ * <p>
+ * The writer fills its back buffer and swaps it with the shared middle
+ * buffer. The reader swaps its front buffer with the middle buffer when the
+ * middle buffer is newer. Each buffer is owned by exactly one side at any
+ * time, so the reader always sees a complete snapshot.
+ */
+public final class ControllerStateBuffer {
+    @NotNull
+    private final Controller controller;
+    @NotNull
+    private final AtomicReference<ControllerState> middle;
+
+    /* Owned by the writer */
+    private ControllerState back;
+    private long sequence;
+
+    /* Owned by the reader */
+    private ControllerState front;
+
+    public ControllerStateBuffer(@NotNull Controller controller) {
+        int size = controller.getComponents().length;
+        this.controller = controller;
+        this.back = new ControllerState(size);
+        this.front = new ControllerState(size);
+        this.middle = new AtomicReference<>(new ControllerState(size));
+    }
+
+    @NotNull
+    public final Controller getController() {
+        return controller;
+    }
+
+    /**
+     * Takes a snapshot of the controller and publishes it to the reader.
+     * Must only be called by one thread at a time.
+     */
+    public final void publish() {
+        ControllerState state = controller.snapshot(back);
+        state.setSequence(++sequence);
+        back = middle.getAndSet(state);
+    }
+
+    /**
+     * Returns the newest published snapshot. The snapshot stays valid and
+     * unchanged until the next call to read(), which must come from the
+     * same thread.
+     */
+    @NotNull
+    public final ControllerState read() {
+        if (middle.get().getSequence() > front.getSequence())
+            front = middle.getAndSet(front);
+        return front;
+    }
+}
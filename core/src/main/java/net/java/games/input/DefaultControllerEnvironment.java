@@ -104,7 +104,7 @@ class DefaultControllerEnvironment extends ControllerEnvironment {
      * or an empty array if there are no controllers in this environment.
      */
     @NotNull
-    public Controller[] getControllers() {
+    public synchronized Controller[] getControllers() {
         if (controllers == null) {
             // Controller list has not been scanned.
             controllers = new ArrayList<>();
@@ -142,6 +142,7 @@ class DefaultControllerEnvironment extends ControllerEnvironment {
                         Class ceClass = Class.forName(className);
                         ControllerEnvironment ce = (ControllerEnvironment) ceClass.newInstance();
                         if (ce.isSupported()) {
+                            ce.addControllerListener(new PluginListener());
                             addControllers(ce.getControllers());
                             loadedPlugins.add(ce.getClass().getName());
                         } else {
@@ -192,6 +193,7 @@ class DefaultControllerEnvironment extends ControllerEnvironment {
                     ControllerEnvironment ce = (ControllerEnvironment)
                             envClass.newInstance();
                     if (ce.isSupported()) {
+                        ce.addControllerListener(new PluginListener());
                         addControllers(ce.getControllers());
                         loadedPlugins.add(ce.getClass().getName());
                     } else {
@@ -208,12 +210,40 @@ class DefaultControllerEnvironment extends ControllerEnvironment {
 
     /**
      * Add the array of controllers to our list of controllers.
+     * A controller the plugin already reported as added is skipped.
      */
     private void addControllers(Controller[] c) {
-        Collections.addAll(controllers, c);
+        for (Controller controller : c) {
+            if (!controllers.contains(controller))
+                controllers.add(controller);
+        }
     }
 
     public boolean isSupported() {
         return true;
     }
+
+    /**
+     * Keeps the controller list up to date with the controllers a plugin
+     * adds or loses after it has been loaded, and passes the change on to
+     * the listeners of this environment.
+     */
+    private final class PluginListener implements ControllerListener {
+        public void controllerAdded(ControllerEvent ev) {
+            synchronized (DefaultControllerEnvironment.this) {
+                if (controllers.contains(ev.getController()))
+                    return;
+                controllers.add(ev.getController());
+            }
+            fireControllerAdded(ev.getController());
+        }
+
+        public void controllerRemoved(ControllerEvent ev) {
+            synchronized (DefaultControllerEnvironment.this) {
+                if (!controllers.remove(ev.getController()))
+                    return;
+            }
+            fireControllerRemoved(ev.getController());
+        }
+    }
 }
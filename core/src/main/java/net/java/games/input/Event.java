@@ -64,8 +64,10 @@ public final class Event {
 
     /**
      * Return the time the event happened, in nanoseconds.
-     * The time is relative and therefore can only be used
-     * to compare with other event times.
+     * All plugins report event times in the time base of
+     * {@link System#nanoTime()}, so they can be compared with
+     * other event times and with System.nanoTime() itself,
+     * for instance to measure input latency.
      */
     public final long getNanos() {
         return nanos;
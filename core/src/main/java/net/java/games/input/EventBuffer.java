@@ -0,0 +1,155 @@
+/*
+ * %W% %E%
+ *
+ * Copyright 2002 Sun Microsystems, Inc. All rights reserved.
+ * SUN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+/*****************************************************************************
+ * Copyright (c) 2003 Sun Microsystems, Inc.  All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * - Redistribution of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * <p>
+ * - Redistribution in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materails provided with the distribution.
+ * <p>
+ * Neither the name Sun Microsystems, Inc. or the names of the contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ * <p>
+ * This software is provided "AS IS," without a warranty of any kind.
+ * ALL EXPRESS OR IMPLIED CONDITIONS, REPRESENTATIONS AND WARRANTIES, INCLUDING
+ * ANY IMPLIED WARRANT OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE OR
+ * NON-INFRINGEMEN, ARE HEREBY EXCLUDED.  SUN MICROSYSTEMS, INC. ("SUN") AND
+ * ITS LICENSORS SHALL NOT BE LIABLE FOR ANY DAMAGES SUFFERED BY LICENSEE AS
+ * A RESULT OF USING, MODIFYING OR DESTRIBUTING THIS SOFTWARE OR ITS
+ * DERIVATIVES.  IN NO EVENT WILL SUN OR ITS LICENSORS BE LIABLE FOR ANY LOST
+ * REVENUE, PROFIT OR DATA, OR FOR DIRECT, INDIRECT, SPECIAL, CONSEQUENTIAL,
+ * INCIDENTAL OR PUNITIVE DAMAGES.  HOWEVER CAUSED AND REGARDLESS OF THE THEORY
+ * OF LIABILITY, ARISING OUT OF THE USE OF OUR INABILITY TO USE THIS SOFTWARE,
+ * EVEN IF SUN HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGES.
+ * <p>
+ * You acknowledge that this software is not designed or intended for us in
+ * the design, construction, operation or maintenance of any nuclear facility
+ *****************************************************************************/
+package net.java.games.input;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A buffer of input events stored as parallel primitive arrays instead of
+ * {@link Event} objects. Each event is a component index, a value and a
+ * time stamp. The component index is the position of the component in
+ * {@link Controller#getComponents()} of the controller that was polled.
+ * <p>
+ * An EventBuffer is filled by {@link Controller#poll(EventBuffer)} and is not
+ * thread safe; the thread that polls into it should also read it, or hand
+ * it over with its own synchronization.
+ */
+public final class EventBuffer {
+    @NotNull
+    private final int[] components;
+    @NotNull
+    private final float[] values;
+    @NotNull
+    private final long[] nanos;
+
+    private int size;
+    private long dropped;
+
+    public EventBuffer(int capacity) {
+        components = new int[capacity];
+        values = new float[capacity];
+        nanos = new long[capacity];
+    }
+
+    /**
+     * Appends an event, or drops it if the buffer is full
+     *
+     * @return false if the buffer was full, otherwise true.
+     */
+    final boolean add(int component_index, float value, long nanos) {
+        if (size == components.length) {
+            dropped++;
+            return false;
+        }
+        this.components[size] = component_index;
+        this.values[size] = value;
+        this.nanos[size] = nanos;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes all events from the buffer
+     */
+    public final void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the number of events in the buffer
+     */
+    public final int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of events the buffer can hold
+     */
+    public final int getCapacity() {
+        return components.length;
+    }
+
+    /**
+     * Returns the number of events that were discarded because the buffer was full
+     */
+    public final long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * Returns the index of the component of the i'th event
+     */
+    public final int getComponentIndex(int i) {
+        return components[i];
+    }
+
+    /**
+     * Returns the value of the i'th event
+     */
+    public final float getValue(int i) {
+        return values[i];
+    }
+
+    /**
+     * Returns the time of the i'th event, in nanoseconds in the time base
+     * of {@link System#nanoTime()}
+     */
+    public final long getNanos(int i) {
+        return nanos[i];
+    }
+
+    /**
+     * Hands every event in the buffer to the visitor, oldest first
+     */
+    public final void forEach(@NotNull Visitor visitor) {
+        for (int i = 0; i < size; i++)
+            visitor.event(components[i], values[i], nanos[i]);
+    }
+
+    /**
+     * Receives the events of an {@link EventBuffer}
+     */
+    public interface Visitor {
+        /**
+         * @param component_index The index of the component in {@link Controller#getComponents()}
+         * @param value           The new value of the component
+         * @param nanos           The time of the event, in nanoseconds
+         */
+        void event(int component_index, float value, long nanos);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * %W% %E%
+ *
+ * Copyright 2002 Sun Microsystems, Inc. All rights reserved.
+ * SUN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+/*****************************************************************************
+ * Copyright (c) 2003 Sun Microsystems, Inc.  All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * - Redistribution of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * <p>
+ * - Redistribution in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materails provided with the distribution.
+ * <p>
+ * Neither the name Sun Microsystems, Inc. or the names of the contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ * <p>
+ * This software is provided "AS IS," without a warranty of any kind.
+ * ALL EXPRESS OR IMPLIED CONDITIONS, REPRESENTATIONS AND WARRANTIES, INCLUDING
+ * ANY IMPLIED WARRANT OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE OR
+ * NON-INFRINGEMEN, ARE HEREBY EXCLUDED.  SUN MICROSYSTEMS, INC. ("SUN") AND
+ * ITS LICENSORS SHALL NOT BE LIABLE FOR ANY DAMAGES SUFFERED BY LICENSEE AS
+ * A RESULT OF USING, MODIFYING OR DESTRIBUTING THIS SOFTWARE OR ITS
+ * DERIVATIVES.  IN NO EVENT WILL SUN OR ITS LICENSORS BE LIABLE FOR ANY LOST
+ * REVENUE, PROFIT OR DATA, OR FOR DIRECT, INDIRECT, SPECIAL, CONSEQUENTIAL,
+ * INCIDENTAL OR PUNITIVE DAMAGES.  HOWEVER CAUSED AND REGARDLESS OF THE THEORY
+ * OF LIABILITY, ARISING OUT OF THE USE OF OUR INABILITY TO USE THIS SOFTWARE,
+ * EVEN IF SUN HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGES.
+ * <p>
+ * You acknowledge that this software is not designed or intended for us in
+ * the design, construction, operation or maintenance of any nuclear facility
+ *****************************************************************************/
+package net.java.games.input;
+
+/**
+ * Converts device timestamps to the time base of {@link Event#getNanos()},
+ * which is the time base of {@link System#nanoTime()}.
+ * <p>
+ * Instances map a wrapping 32 bit millisecond counter such as GetTickCount()
+ * or the joystick driver's event time, which has no fixed relation to
+ * System.nanoTime(). Events are read after they happen, so every read gives
+ * an upper bound on the offset between the two clocks. The smallest bound
+ * seen over the last two windows of WINDOW_NANOS is used, which lets the
+ * estimate follow drift between the clocks. Instances are not thread safe.
+ */
+final class EventClock {
+    private final static long NANOS_PER_MILLI = 1000000L;
+    private final static long WINDOW_NANOS = 10000000000L;
+    private final static long TICK_MASK = 0xffffffffL;
+
+    private boolean anchored;
+    /* The newest tick count seen, as read and unwrapped */
+    private long latest_millis;
+    private long latest_ticks;
+    private long window_start;
+    private long window_offset;
+    private long previous_window_offset;
+
+    /**
+     * Converts a timestamp of {@link System#currentTimeMillis()}, such as the
+     * time of an AWT input event.
+     */
+    static long fromCurrentTimeMillis(long millis) {
+        return fromCurrentTimeNanos(millis * NANOS_PER_MILLI);
+    }
+
+    /**
+     * Converts a wall clock timestamp in nanoseconds since the epoch, such
+     * as the time of a Linux input event, keeping its sub-millisecond part.
+     */
+    static long fromCurrentTimeNanos(long nanos) {
+        return System.nanoTime() - (System.currentTimeMillis() * NANOS_PER_MILLI - nanos);
+    }
+
+    /**
+     * Feeds the newest tick count of a batch of events that was read at
+     * read_nanos. Call it before converting the events of the batch.
+     */
+    final void update(long millis, long read_nanos) {
+        millis &= TICK_MASK;
+        if (!anchored) {
+            anchored = true;
+            latest_millis = millis;
+            latest_ticks = millis;
+            window_start = read_nanos;
+            window_offset = previous_window_offset = read_nanos - millis * NANOS_PER_MILLI;
+            return;
+        }
+        long delta = (millis - latest_millis) & TICK_MASK;
+        // Older tick counts than the newest seen give a looser bound, skip them
+        if (delta > (TICK_MASK >> 1))
+            return;
+        latest_millis = millis;
+        latest_ticks += delta;
+        long offset = read_nanos - latest_ticks * NANOS_PER_MILLI;
+        if (read_nanos - window_start > WINDOW_NANOS) {
+            previous_window_offset = window_offset;
+            window_offset = offset;
+            window_start = read_nanos;
+        } else {
+            window_offset = Math.min(window_offset, offset);
+        }
+    }
+
+    /**
+     * Converts a tick count that is not newer than the last one passed to
+     * {@link #update}.
+     */
+    final long toNanos(long millis) {
+        long ticks = latest_ticks - ((latest_millis - millis) & TICK_MASK);
+        return ticks * NANOS_PER_MILLI + Math.min(window_offset, previous_window_offset);
+    }
+}
@@ -41,37 +41,156 @@ import org.jetbrains.annotations.NotNull;
 
 /**
  * A FIFO queue for input events.
+ * <p>
+ * This implementation guards every operation with the queue monitor, so any
+ * number of threads may add and remove events. {@link LockFreeEventQueue} is a
+ * lock-free alternative for the common case of one polling thread and one
+ * draining thread.
+ * <p>
+ * What happens to an event that arrives while the queue is full is decided by
+ * the queue's {@link OverflowPolicy}. The queue counts dropped and coalesced
+ * events and remembers the largest number of events it has held, so that
+ * queue sizes can be chosen from measurements.
  */
-public final class EventQueue {
+public class EventQueue {
     @NotNull
-    private final Event[] queue;
+    private final OverflowPolicy policy;
+    private final int max_size;
+
+    @NotNull
+    private Event[] queue;
 
     private int head;
     private int tail;
 
+    private long dropped;
+    private long coalesced;
+    private int high_water_mark;
+
     /**
      * This is an internal method and should not be called by applications using the API
      */
     public EventQueue(int size) {
+        this(size, OverflowPolicy.DROP_NEWEST, size);
+    }
+
+    /**
+     * This is an internal method and should not be called by applications using the API
+     *
+     * @param size     The initial number of events the queue can hold
+     * @param policy   What to do with events that arrive while the queue is full
+     * @param max_size The size the queue may grow to under {@link OverflowPolicy#GROW}
+     */
+    public EventQueue(int size, @NotNull OverflowPolicy policy, int max_size) {
+        this.policy = policy;
+        this.max_size = Math.max(size, max_size);
         queue = new Event[size + 1];
         for (int i = 0; i < queue.length; i++)
             queue[i] = new Event();
     }
 
+    /**
+     * Constructor for subclasses that manage their own storage
+     */
+    EventQueue(@NotNull OverflowPolicy policy) {
+        this.policy = policy;
+        this.max_size = 0;
+        queue = new Event[0];
+    }
+
     /**
      * This is an internal method and should not be called by applications using the API
      */
-    final synchronized void add(@NotNull Event event) {
+    synchronized void add(@NotNull Event event) {
         queue[tail].set(event);
         tail = increase(tail);
     }
 
+    /**
+     * Adds the event to the queue, applying the overflow policy if the queue
+     * is full.
+     *
+     * @return false if the event was dropped, otherwise true.
+     */
+    synchronized boolean offer(@NotNull Event event) {
+        if (isFull()) {
+            switch (policy) {
+                case DROP_OLDEST:
+                    head = increase(head);
+                    dropped++;
+                    break;
+                case GROW:
+                    if (!grow()) {
+                        dropped++;
+                        return false;
+                    }
+                    break;
+                case COALESCE:
+                    if (coalesce(event)) {
+                        coalesced++;
+                        return true;
+                    }
+                    dropped++;
+                    return false;
+                default:
+                    dropped++;
+                    return false;
+            }
+        }
+        add(event);
+        int size = getSize();
+        if (size > high_water_mark)
+            high_water_mark = size;
+        return true;
+    }
+
+    /**
+     * Doubles the queue, up to max_size events
+     */
+    private boolean grow() {
+        int size = queue.length - 1;
+        if (size >= max_size)
+            return false;
+        int new_size = (int) Math.min((long) size * 2 + 1, max_size);
+        Event[] new_queue = new Event[new_size + 1];
+        int count = getSize();
+        for (int i = 0; i < count; i++) {
+            new_queue[i] = queue[head];
+            head = increase(head);
+        }
+        for (int i = count; i < new_queue.length; i++)
+            new_queue[i] = new Event();
+        queue = new_queue;
+        head = 0;
+        tail = count;
+        return true;
+    }
+
+    /**
+     * Folds the event into the newest queued event if that is from the same
+     * analog or relative component. Relative values are summed, absolute
+     * values are replaced. Events further back are left alone so the queue
+     * stays in time order. Digital components are never coalesced, since
+     * that would lose a press or a release.
+     */
+    private boolean coalesce(@NotNull Event event) {
+        Component component = event.getComponent();
+        if (component == null || !(component.isRelative() || component.isAnalog()) || tail == head)
+            return false;
+        Event queued = queue[tail == 0 ? queue.length - 1 : tail - 1];
+        if (queued.getComponent() != component)
+            return false;
+        float value = component.isRelative() ? queued.getValue() + event.getValue() : event.getValue();
+        queued.set(component, value, event.getNanos());
+        return true;
+    }
+
     /**
      * Check if the queue is full
      *
      * @return true if the queue is full
      */
-    final synchronized boolean isFull() {
+    synchronized boolean isFull() {
         return increase(tail) == head;
     }
 
@@ -82,17 +201,115 @@ public final class EventQueue {
         return (x + 1) % queue.length;
     }
 
+    private int getSize() {
+        return (tail - head + queue.length) % queue.length;
+    }
+
+    /**
+     * Returns the number of events the queue can currently hold
+     */
+    public synchronized int getCapacity() {
+        return queue.length - 1;
+    }
+
+    /**
+     * Returns the overflow policy of the queue
+     */
+    @NotNull
+    public final OverflowPolicy getOverflowPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns the number of events that were discarded because the queue was full
+     */
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * Returns the number of events that were folded into an already queued event
+     */
+    public synchronized long getCoalescedCount() {
+        return coalesced;
+    }
+
+    /**
+     * Returns the largest number of events the queue has held at once
+     */
+    public synchronized int getHighWaterMark() {
+        return high_water_mark;
+    }
+
     /**
      * Populates the provided event with the details of the event on the head of the queue.
      *
      * @param event The event to populate
      * @return false if there were no events left on the queue, otherwise true.
      */
-    public final synchronized boolean getNextEvent(@NotNull Event event) {
+    public synchronized boolean getNextEvent(@NotNull Event event) {
         if (head == tail)
             return false;
         event.set(queue[head]);
         head = increase(head);
         return true;
     }
+
+    /**
+     * Moves up to max events from the head of the queue into dst, taking the
+     * queue lock once for the whole batch.
+     *
+     * @param dst The events to populate, starting at index 0
+     * @param max The maximum number of events to move
+     * @return the number of events moved
+     */
+    public synchronized int drainTo(@NotNull Event[] dst, int max) {
+        int count = 0;
+        max = Math.min(max, dst.length);
+        while (count < max && head != tail) {
+            dst[count++].set(queue[head]);
+            head = increase(head);
+        }
+        return count;
+    }
+
+    /**
+     * Hands every queued event to the sink, taking the queue lock once.
+     *
+     * @param sink The sink that receives the events
+     * @return the number of events drained
+     */
+    public synchronized int drain(@NotNull EventSink sink) {
+        int count = 0;
+        while (head != tail) {
+            Event event = queue[head];
+            sink.event(event.getComponent(), event.getValue(), event.getNanos());
+            head = increase(head);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * What an {@link EventQueue} does with an event that arrives while it is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Discard the arriving event
+         */
+        DROP_NEWEST,
+        /**
+         * Discard the oldest queued event to make room for the arriving one
+         */
+        DROP_OLDEST,
+        /**
+         * Double the queue, up to its maximum size, then discard the arriving event
+         */
+        GROW,
+        /**
+         * Fold the arriving event into the newest queued event if that is
+         * from the same analog or relative component, otherwise discard it
+         */
+        COALESCE
+    }
 }
@@ -0,0 +1,87 @@
+/*
+ * %W% %E%
+ *
+ * Copyright 2002 Sun Microsystems, Inc. All rights reserved.
+ * SUN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+/*****************************************************************************
+ * Copyright (c) 2003 Sun Microsystems, Inc.  All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * - Redistribution of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * <p>
+ * - Redistribution in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materails provided with the distribution.
+ * <p>
+ * Neither the name Sun Microsystems, Inc. or the names of the contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ * <p>
+ * This software is provided "AS IS," without a warranty of any kind.
+ * ALL EXPRESS OR IMPLIED CONDITIONS, REPRESENTATIONS AND WARRANTIES, INCLUDING
+ * ANY IMPLIED WARRANT OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE OR
+ * NON-INFRINGEMEN, ARE HEREBY EXCLUDED.  SUN MICROSYSTEMS, INC. ("SUN") AND
+ * ITS LICENSORS SHALL NOT BE LIABLE FOR ANY DAMAGES SUFFERED BY LICENSEE AS
+ * A RESULT OF USING, MODIFYING OR DESTRIBUTING THIS SOFTWARE OR ITS
+ * DERIVATIVES.  IN NO EVENT WILL SUN OR ITS LICENSORS BE LIABLE FOR ANY LOST
+ * REVENUE, PROFIT OR DATA, OR FOR DIRECT, INDIRECT, SPECIAL, CONSEQUENTIAL,
+ * INCIDENTAL OR PUNITIVE DAMAGES.  HOWEVER CAUSED AND REGARDLESS OF THE THEORY
+ * OF LIABILITY, ARISING OUT OF THE USE OF OUR INABILITY TO USE THIS SOFTWARE,
+ * EVEN IF SUN HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGES.
+ * <p>
+ * You acknowledge that this software is not designed or intended for us in
+ * the design, construction, operation or maintenance of any nuclear facility
+ *****************************************************************************/
+package net.java.games.input;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An immutable input event, as delivered to an {@link InputEventPublisher.Subscriber}.
+ * Unlike {@link Event}, an InputEvent also carries the controller it came from
+ * and may be kept after it has been delivered.
+ */
+public final class InputEvent {
+    private final Controller controller;
+    private final Component component;
+    private final float value;
+    private final long nanos;
+
+    InputEvent(Controller controller, Component component, float value, long nanos) {
+        this.controller = controller;
+        this.component = component;
+        this.value = value;
+        this.nanos = nanos;
+    }
+
+    public final Controller getController() {
+        return controller;
+    }
+
+    public final Component getComponent() {
+        return component;
+    }
+
+    public final float getValue() {
+        return value;
+    }
+
+    /**
+     * Return the time the event happened, in nanoseconds.
+     * All plugins report event times in the time base of
+     * {@link System#nanoTime()}, so they can be compared with
+     * other event times and with System.nanoTime() itself,
+     * for instance to measure input latency.
+     */
+    public final long getNanos() {
+        return nanos;
+    }
+
+    @NotNull
+    public final String toString() {
+        return "InputEvent: controller = " + controller + " | component = " + component + " | value = " + value;
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * %W% %E%
+ *
+ * Copyright 2002 Sun Microsystems, Inc. All rights reserved.
+ * SUN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+/*****************************************************************************
+ * Copyright (c) 2003 Sun Microsystems, Inc.  All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * - Redistribution of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * <p>
+ * - Redistribution in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materails provided with the distribution.
+ * <p>
+ * Neither the name Sun Microsystems, Inc. or the names of the contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ * <p>
+ * This software is provided "AS IS," without a warranty of any kind.
+ * ALL EXPRESS OR IMPLIED CONDITIONS, REPRESENTATIONS AND WARRANTIES, INCLUDING
+ * ANY IMPLIED WARRANT OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE OR
+ * NON-INFRINGEMEN, ARE HEREBY EXCLUDED.  SUN MICROSYSTEMS, INC. ("SUN") AND
+ * ITS LICENSORS SHALL NOT BE LIABLE FOR ANY DAMAGES SUFFERED BY LICENSEE AS
+ * A RESULT OF USING, MODIFYING OR DESTRIBUTING THIS SOFTWARE OR ITS
+ * DERIVATIVES.  IN NO EVENT WILL SUN OR ITS LICENSORS BE LIABLE FOR ANY LOST
+ * REVENUE, PROFIT OR DATA, OR FOR DIRECT, INDIRECT, SPECIAL, CONSEQUENTIAL,
+ * INCIDENTAL OR PUNITIVE DAMAGES.  HOWEVER CAUSED AND REGARDLESS OF THE THEORY
+ * OF LIABILITY, ARISING OUT OF THE USE OF OUR INABILITY TO USE THIS SOFTWARE,
+ * EVEN IF SUN HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGES.
+ * <p>
+ * You acknowledge that this software is not designed or intended for us in
+ * the design, construction, operation or maintenance of any nuclear facility
+ *****************************************************************************/
+package net.java.games.input;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes input events to subscribers, honouring the demand each subscriber
+ * signals with {@link Subscription#request}.
+ * <p>
+ * The Subscriber and Subscription interfaces follow the contract of
+ * java.util.concurrent.Flow, which this library cannot depend on while it
+ * supports Java 8, so adapting them to Flow or to Reactive Streams is a
+ * matter of forwarding calls.
+ * <p>
+ * Events are produced when a controller is polled, for example by a
+ * {@link ControllerPoller}. Each subscriber has a bounded buffer; the events
+ * of one poll are added to every buffer and then delivered as a batch, up to
+ * the outstanding demand, on the polling thread. Events that arrive while a
+ * subscriber's buffer is full are dropped and counted.
+ */
+public final class InputEventPublisher {
+    /**
+     * The number of events buffered for each subscriber
+     */
+    public final static int DEFAULT_BUFFER_SIZE = 256;
+
+    private final List<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final int buffer_size;
+
+    public InputEventPublisher() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param buffer_size The number of events buffered for each subscriber
+     */
+    public InputEventPublisher(int buffer_size) {
+        if (buffer_size <= 0)
+            throw new IllegalArgumentException("buffer_size must be positive: " + buffer_size);
+        this.buffer_size = buffer_size;
+    }
+
+    /**
+     * Adds a subscriber. The subscriber's onSubscribe is called before this method returns.
+     */
+    public final void subscribe(@NotNull Subscriber subscriber) {
+        EventSubscription subscription = new EventSubscription(subscriber);
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * Returns true if there is at least one subscriber
+     */
+    public final boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Buffers the event for every subscriber. The event is delivered by the
+     * next call to {@link #flush} or {@link Subscription#request}.
+     */
+    final void offer(@NotNull InputEvent event) {
+        for (EventSubscription subscription : subscriptions)
+            subscription.offer(event);
+    }
+
+    /**
+     * Delivers buffered events to every subscriber, up to its demand
+     */
+    final void flush() {
+        for (EventSubscription subscription : subscriptions)
+            subscription.drain();
+    }
+
+    /**
+     * Terminates every subscription with the error
+     */
+    final void error(@NotNull Throwable throwable) {
+        for (EventSubscription subscription : subscriptions)
+            subscription.terminate(throwable);
+    }
+
+    /**
+     * Terminates every subscription normally, once its buffered events
+     * have been delivered
+     */
+    final void complete() {
+        for (EventSubscription subscription : subscriptions)
+            subscription.terminate(null);
+    }
+
+    /**
+     * Receives input events from an {@link InputEventPublisher}.
+     * Methods are called serially, but not necessarily from the same thread.
+     */
+    public interface Subscriber {
+        /**
+         * Called once, before any other method, with the subscription that
+         * controls the flow of events
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Called once for every event, never more often than requested
+         */
+        void onNext(InputEvent event);
+
+        /**
+         * Called once if the publisher fails, for example because the
+         * controller is no longer valid. No further methods are called.
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Called once when the publisher has no more events.
+         * No further methods are called.
+         */
+        void onComplete();
+    }
+
+    /**
+     * A subscriber that is told when a batch of events has been delivered,
+     * so it can act once per poll rather than once per event
+     */
+    interface BatchSubscriber extends Subscriber {
+        /**
+         * Called after the onNext calls of one batch
+         */
+        void onBatchEnd();
+    }
+
+    /**
+     * Links a {@link Subscriber} to an {@link InputEventPublisher}
+     */
+    public interface Subscription {
+        /**
+         * Adds n events to the demand of the subscriber. Buffered events are
+         * delivered immediately, up to the new demand.
+         */
+        void request(long n);
+
+        /**
+         * Stops delivery to the subscriber
+         */
+        void cancel();
+
+        /**
+         * Returns the number of events that were discarded because the
+         * subscriber's buffer was full
+         */
+        long getDroppedCount();
+    }
+
+    private final class EventSubscription implements Subscription {
+        private final Subscriber subscriber;
+        private final ArrayBlockingQueue<InputEvent> buffer = new ArrayBlockingQueue<>(buffer_size);
+        private final AtomicLong requested = new AtomicLong();
+        /* Serializes delivery between the polling thread and requesting threads */
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean cancelled;
+        /* Set once the publisher terminates; error is null for normal completion */
+        private volatile boolean done;
+        private volatile Throwable error;
+
+        EventSubscription(Subscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        final void offer(InputEvent event) {
+            if (!buffer.offer(event))
+                dropped.incrementAndGet();
+        }
+
+        final void drain() {
+            if (wip.getAndIncrement() != 0)
+                return;
+            int missed = 1;
+            do {
+                long demand = requested.get();
+                long delivered = 0;
+                while (delivered != demand && !cancelled && error == null) {
+                    InputEvent event = buffer.poll();
+                    if (event == null)
+                        break;
+                    subscriber.onNext(event);
+                    delivered++;
+                }
+                if (delivered != 0 && demand != Long.MAX_VALUE)
+                    requested.addAndGet(-delivered);
+                if (delivered != 0 && !cancelled && subscriber instanceof BatchSubscriber)
+                    ((BatchSubscriber)subscriber).onBatchEnd();
+                // an error cuts ahead of buffered events, completion waits for them
+                if (done && !cancelled && (error != null || buffer.isEmpty())) {
+                    Throwable throwable = error;
+                    cancel();
+                    if (throwable != null)
+                        subscriber.onError(throwable);
+                    else
+                        subscriber.onComplete();
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Ends the subscription from within the drain loop, so the final
+         * call never overlaps an onNext on another thread
+         */
+        final void terminate(Throwable throwable) {
+            synchronized (this) {
+                if (done)
+                    return;
+                error = throwable;
+                done = true;
+            }
+            drain();
+        }
+
+        @Override
+        public final void request(long n) {
+            if (cancelled)
+                return;
+            if (n <= 0) {
+                terminate(new IllegalArgumentException("non-positive request: " + n));
+                return;
+            }
+            long current;
+            long next;
+            do {
+                current = requested.get();
+                next = current + n;
+                if (next < 0)
+                    next = Long.MAX_VALUE;
+            } while (!requested.compareAndSet(current, next));
+            drain();
+        }
+
+        @Override
+        public final void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            buffer.clear();
+        }
+
+        @Override
+        public final long getDroppedCount() {
+            return dropped.get();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * %W% %E%
+ *
+ * Copyright 2002 Sun Microsystems, Inc. All rights reserved.
+ * SUN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+/*****************************************************************************
+ * Copyright (c) 2003 Sun Microsystems, Inc.  All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * - Redistribution of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * <p>
+ * - Redistribution in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materails provided with the distribution.
+ * <p>
+ * Neither the name Sun Microsystems, Inc. or the names of the contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ * <p>
+ * This software is provided "AS IS," without a warranty of any kind.
+ * ALL EXPRESS OR IMPLIED CONDITIONS, REPRESENTATIONS AND WARRANTIES, INCLUDING
+ * ANY IMPLIED WARRANT OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE OR
+ * NON-INFRINGEMEN, ARE HEREBY EXCLUDED.  SUN MICROSYSTEMS, INC. ("SUN") AND
+ * ITS LICENSORS SHALL NOT BE LIABLE FOR ANY DAMAGES SUFFERED BY LICENSEE AS
+ * A RESULT OF USING, MODIFYING OR DESTRIBUTING THIS SOFTWARE OR ITS
+ * DERIVATIVES.  IN NO EVENT WILL SUN OR ITS LICENSORS BE LIABLE FOR ANY LOST
+ * REVENUE, PROFIT OR DATA, OR FOR DIRECT, INDIRECT, SPECIAL, CONSEQUENTIAL,
+ * INCIDENTAL OR PUNITIVE DAMAGES.  HOWEVER CAUSED AND REGARDLESS OF THE THEORY
+ * OF LIABILITY, ARISING OUT OF THE USE OF OUR INABILITY TO USE THIS SOFTWARE,
+ * EVEN IF SUN HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGES.
+ * <p>
+ * You acknowledge that this software is not designed or intended for us in
+ * the design, construction, operation or maintenance of any nuclear facility
+ *****************************************************************************/
+package net.java.games.input;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free FIFO queue for input events, safe for exactly one producer
+ * (the thread calling {@link Controller#poll}) and one consumer (the thread
+ * calling {@link #getNextEvent}) at a time.
+ * <p>
+ * Only {@link OverflowPolicy#DROP_NEWEST} is supported, since the other
+ * policies would need the producer to move the head.
+ * <p>
+ * The capacity is rounded up to a power of two so that slot indices are
+ * computed with a mask. The head and tail counters are published with
+ * release stores and read with volatile loads. Every field either thread
+ * writes lives in a padded slot of one array, grouped by the thread that
+ * writes it, with 128 bytes between the groups and around them, so the
+ * producer and the consumer never write to the same cache line.
+ */
+public final class LockFreeEventQueue extends EventQueue {
+    /* Longs between the array header, the consumer slots and the producer slots */
+    private final static int PAD = 16;
+    /* Written by the consumer only: the head and the last tail it saw */
+    private final static int HEAD = PAD;
+    private final static int TAIL_CACHE = PAD + 1;
+    /* Written by the producer only: the tail, the last head it saw and the statistics */
+    private final static int TAIL = 2 * PAD + 1;
+    private final static int HEAD_CACHE = 2 * PAD + 2;
+    private final static int DROPPED = 2 * PAD + 3;
+    private final static int HIGH_WATER_MARK = 2 * PAD + 4;
+    /* The capacity is rounded up to a power of two, which must fit in an int */
+    private final static int MAX_CAPACITY = 1 << 30;
+
+    @NotNull
+    private final Event[] queue;
+    private final int mask;
+    @NotNull
+    private final AtomicLongArray indices = new AtomicLongArray(4 * PAD);
+
+    /**
+     * This is an internal method and should not be called by applications using the API
+     *
+     * @throws IllegalArgumentException if size is larger than the largest power of two array
+     */
+    public LockFreeEventQueue(int size) {
+        super(OverflowPolicy.DROP_NEWEST);
+        if (size > MAX_CAPACITY)
+            throw new IllegalArgumentException("size must not exceed " + MAX_CAPACITY + ": " + size);
+        int capacity = Integer.highestOneBit(Math.max(size, 1) - 1) << 1;
+        if (capacity <= 0)
+            capacity = 1;
+        queue = new Event[capacity];
+        for (int i = 0; i < queue.length; i++)
+            queue[i] = new Event();
+        mask = capacity - 1;
+    }
+
+    /**
+     * Returns the number of events the queue can hold
+     */
+    @Override
+    public final int getCapacity() {
+        return queue.length;
+    }
+
+    @Override
+    public final long getDroppedCount() {
+        return indices.get(DROPPED);
+    }
+
+    @Override
+    public final long getCoalescedCount() {
+        return 0;
+    }
+
+    @Override
+    public final int getHighWaterMark() {
+        return (int) indices.get(HIGH_WATER_MARK);
+    }
+
+    @Override
+    final void add(@NotNull Event event) {
+        long tail = indices.get(TAIL);
+        queue[(int) tail & mask].set(event);
+        indices.lazySet(TAIL, tail + 1);
+    }
+
+    @Override
+    final boolean offer(@NotNull Event event) {
+        if (isFull()) {
+            indices.lazySet(DROPPED, indices.get(DROPPED) + 1);
+            return false;
+        }
+        add(event);
+        long high_water_mark = indices.get(HIGH_WATER_MARK);
+        long size = indices.get(TAIL) - indices.get(HEAD_CACHE);
+        if (size > high_water_mark) {
+            long head = indices.get(HEAD);
+            indices.lazySet(HEAD_CACHE, head);
+            size = indices.get(TAIL) - head;
+            if (size > high_water_mark)
+                indices.lazySet(HIGH_WATER_MARK, size);
+        }
+        return true;
+    }
+
+    @Override
+    final boolean isFull() {
+        long tail = indices.get(TAIL);
+        if (tail - indices.get(HEAD_CACHE) < queue.length)
+            return false;
+        long head = indices.get(HEAD);
+        indices.lazySet(HEAD_CACHE, head);
+        return tail - head >= queue.length;
+    }
+
+    @Override
+    public final boolean getNextEvent(@NotNull Event event) {
+        long head = indices.get(HEAD);
+        if (head >= indices.get(TAIL_CACHE)) {
+            long tail = indices.get(TAIL);
+            indices.lazySet(TAIL_CACHE, tail);
+            if (head >= tail)
+                return false;
+        }
+        event.set(queue[(int) head & mask]);
+        indices.lazySet(HEAD, head + 1);
+        return true;
+    }
+
+    /**
+     * Moves up to max events from the head of the queue into dst with a
+     * single acquire of the tail and a single release of the head.
+     */
+    @Override
+    public final int drainTo(@NotNull Event[] dst, int max) {
+        long head = indices.get(HEAD);
+        long tail = indices.get(TAIL);
+        int count = (int) Math.min(tail - head, Math.min(max, dst.length));
+        if (count <= 0)
+            return 0;
+        for (int i = 0; i < count; i++)
+            dst[i].set(queue[(int) (head + i) & mask]);
+        indices.lazySet(HEAD, head + count);
+        return count;
+    }
+
+    /**
+     * Hands every queued event to the sink with a single acquire of the tail
+     * and a single release of the head.
+     */
+    @Override
+    public final int drain(@NotNull EventSink sink) {
+        long head = indices.get(HEAD);
+        long tail = indices.get(TAIL);
+        int count = (int) (tail - head);
+        if (count <= 0)
+            return 0;
+        for (long i = head; i < tail; i++) {
+            Event event = queue[(int) i & mask];
+            sink.event(event.getComponent(), event.getValue(), event.getNanos());
+        }
+        indices.lazySet(HEAD, tail);
+        return count;
+    }
+}
@@ -45,21 +45,21 @@ import java.io.IOException;
  * @version 1.0
  */
 final class OSXControllers {
-    private final static OSXEvent osx_event = new OSXEvent();
-
-    public static synchronized float poll(OSXHIDElement element) throws IOException {
-        element.getElementValue(osx_event);
-        return element.convertValue(osx_event.getValue());
+    public static float poll(OSXHIDElement element) throws IOException {
+        return element.convertValue(element.getElementValue());
     }
 
-    /* synchronized to protect osx_event */
-    public static synchronized boolean getNextDeviceEvent(Event event, OSXHIDQueue queue) throws IOException {
-        if (queue.getNextEvent(osx_event)) {
-            OSXComponent component = queue.mapEvent(osx_event);
-            event.set(component, component.getElement().convertValue(osx_event.getValue()), osx_event.getNanos());
-            return true;
-        } else
-            return false;
+    /* Synchronized on the queue to protect its scratch event */
+    public static boolean getNextDeviceEvent(Event event, OSXHIDQueue queue) throws IOException {
+        synchronized (queue) {
+            OSXEvent osx_event = queue.getScratchEvent();
+            if (queue.getNextEvent(osx_event)) {
+                OSXComponent component = queue.mapEvent(osx_event);
+                event.set(component, component.getElement().convertValue(osx_event.getValue()), osx_event.getNanos());
+                return true;
+            } else
+                return false;
+        }
     }
 }
 
@@ -103,6 +103,8 @@ final class OSXHIDDevice {
     private final long device_address;
     private final long device_interface_address;
     private final Map properties;
+    /* Scratch event, guarded by the device monitor */
+    private final OSXEvent scratch_event = new OSXEvent();
 
     private boolean released;
 
@@ -300,6 +302,11 @@ final class OSXHIDDevice {
         nGetElementValue(device_interface_address, element_cookie, event);
     }
 
+    public final synchronized int getElementValue(long element_cookie) throws IOException {
+        getElementValue(element_cookie, scratch_event);
+        return scratch_event.getValue();
+    }
+
     public final synchronized OSXHIDQueue createQueue(int queue_depth) throws IOException {
         checkReleased();
         long queue_address = nCreateQueue(device_interface_address);
@@ -102,8 +102,8 @@ final class OSXHIDElement {
         return usage_pair;
     }
 
-    final void getElementValue(OSXEvent event) throws IOException {
-        device.getElementValue(element_cookie, event);
+    final int getElementValue() throws IOException {
+        return device.getElementValue(element_cookie);
     }
 
     final float convertValue(float value) {
@@ -49,6 +49,8 @@ import java.util.Map;
 final class OSXHIDQueue {
     private final Map<Long, Component> map = new HashMap<>();
     private final long queue_address;
+    /* Scratch event, guarded by the queue monitor */
+    private final OSXEvent scratch_event = new OSXEvent();
 
     private boolean released;
 
@@ -138,6 +140,14 @@ final class OSXHIDQueue {
         map.remove(element.getCookie());
     }
 
+    /**
+     * Returns the event used by {@link OSXControllers#getNextDeviceEvent}.
+     * Callers must hold the queue monitor while using it.
+     */
+    final OSXEvent getScratchEvent() {
+        return scratch_event;
+    }
+
     public final synchronized boolean getNextEvent(OSXEvent event) throws IOException {
         checkReleased();
         return nGetNextEvent(queue_address, event);
@@ -107,7 +107,7 @@ final class AWTKeyboard extends Keyboard implements AWTEventListener {
         if (key_id == null)
             return;
         Key key = (Key) getComponent(key_id);
-        long nanos = event.getWhen() * 1000000L;
+        long nanos = EventClock.fromCurrentTimeMillis(event.getWhen());
         if (event.getID() == KeyEvent.KEY_PRESSED) {
             //the key was pressed
             addEvent(key, 1, nanos);
@@ -125,12 +125,12 @@ final class AWTMouse extends Mouse implements AWTEventListener {
             AWTEvent awt_event = processed_awt_events.get(0);
             if (awt_event instanceof MouseWheelEvent) {
                 MouseWheelEvent awt_wheel_event = (MouseWheelEvent) awt_event;
-                long nanos = awt_wheel_event.getWhen() * 1000000L;
+                long nanos = EventClock.fromCurrentTimeMillis(awt_wheel_event.getWhen());
                 event.set(getWheel(), awt_wheel_event.getWheelRotation(), nanos);
                 processed_awt_events.remove(0);
             } else if (awt_event instanceof MouseEvent) {
                 MouseEvent mouse_event = (MouseEvent) awt_event;
-                long nanos = mouse_event.getWhen() * 1000000L;
+                long nanos = EventClock.fromCurrentTimeMillis(mouse_event.getWhen());
                 switch (event_state) {
                     case EVENT_X:
                         event_state = EVENT_Y;
@@ -40,6 +40,7 @@ package net.java.games.input;
 import org.jetbrains.annotations.Contract;
 
 import java.io.IOException;
+import java.util.Set;
 
 /** Represents a Linux controller
  * @author elias
@@ -57,6 +58,10 @@ final class LinuxAbstractController extends AbstractController {
         this.type = type;
     }
 
+    final LinuxEventDevice getDevice() {
+        return device;
+    }
+
     @Contract(pure = true)
     @Override
     public final PortType getPortType() {
@@ -64,13 +69,13 @@ final class LinuxAbstractController extends AbstractController {
     }
 
     @Override
-    public final void pollDevice() throws IOException {
-        device.pollKeyStates();
+    protected final boolean getNextDeviceEvent(Event event) throws IOException {
+        return LinuxControllers.getNextDeviceEvent(event, device);
     }
 
     @Override
-    protected final boolean getNextDeviceEvent(Event event) throws IOException {
-        return LinuxControllers.getNextDeviceEvent(event, device);
+    protected final void setDeviceComponentFilter(Set<Component> components) throws IOException {
+        device.setComponentFilter(components);
     }
 
     @Override
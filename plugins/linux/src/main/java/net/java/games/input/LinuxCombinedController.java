@@ -15,6 +15,10 @@ public class LinuxCombinedController extends AbstractController {
     }
 
 
+    final LinuxAbstractController getEventController() {
+        return eventController;
+    }
+
     protected boolean getNextDeviceEvent(Event event) throws IOException {
         return joystickController.getNextDeviceEvent(event);
     }
@@ -24,7 +28,6 @@ public class LinuxCombinedController extends AbstractController {
     }
 
     public final void pollDevice() throws IOException {
-        eventController.pollDevice();
         joystickController.pollDevice();
     }
 
@@ -44,33 +44,32 @@ import java.io.IOException;
  * @version 1.0
  */
 final class LinuxControllers {
-    private final static LinuxEvent linux_event = new LinuxEvent();
-    private final static LinuxAbsInfo abs_info = new LinuxAbsInfo();
-
-    /* Declared synchronized to protect linux_event */
-    public static synchronized boolean getNextDeviceEvent(Event event, LinuxEventDevice device) throws IOException {
-        while (device.getNextEvent(linux_event)) {
-            LinuxAxisDescriptor descriptor = linux_event.getDescriptor();
-            LinuxComponent component = device.mapDescriptor(descriptor);
-            if (component != null) {
-                float value = component.convertValue(linux_event.getValue(), descriptor);
-                event.set(component, value, linux_event.getNanos());
-                return true;
+    /* Synchronized on the device to protect its scratch event */
+    public static boolean getNextDeviceEvent(Event event, LinuxEventDevice device) throws IOException {
+        synchronized (device) {
+            LinuxEvent linux_event = device.getScratchEvent();
+            boolean frame_mode = device.isFrameMode();
+            while (frame_mode ? device.getNextFrameEvent(linux_event) : device.getNextEvent(linux_event)) {
+                LinuxAxisDescriptor descriptor = linux_event.getDescriptor();
+                LinuxComponent component = device.mapDescriptor(descriptor);
+                if (component != null) {
+                    float value = component.convertValue(linux_event.getValue(), descriptor);
+                    event.set(component, value, linux_event.getNanos());
+                    return true;
+                }
             }
+            return false;
         }
-        return false;
     }
 
-    /* Declared synchronized to protect abs_info */
-    public static synchronized float poll(LinuxEventComponent event_component) throws IOException {
+    public static float poll(LinuxEventComponent event_component) throws IOException {
         int native_type = event_component.getDescriptor().getType();
         switch (native_type) {
             case NativeDefinitions.EV_KEY:
                 int native_code = event_component.getDescriptor().getCode();
                 return event_component.getDevice().isKeySet(native_code) ? 1f : 0f;
             case NativeDefinitions.EV_ABS:
-                event_component.getAbsInfo(abs_info);
-                return abs_info.getValue();
+                return event_component.getAbsValue();
             default:
                 throw new RuntimeException("Unknown native_type: " + native_type);
         }
@@ -32,4 +32,7 @@ import java.io.IOException;
  */
 interface LinuxDevice {
     void close() throws IOException;
+
+    /* The file descriptor of the open device, for use with epoll */
+    long getFD();
 }
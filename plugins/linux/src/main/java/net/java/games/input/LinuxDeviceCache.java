@@ -0,0 +1,314 @@
+/**
+ * Copyright (C) 2003 Jeremy Booth (jeremy@newdawnsoftware.com)
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution.
+ * The name of the author may not be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ */
+package net.java.games.input;
+
+import net.java.games.input.Controller.Type;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-disk cache of the capabilities of evdev devices, so that devices
+ * that have not changed since the last start are opened without querying
+ * their name, components, axis limits, force feedback and type. An entry is
+ * keyed by device node and is only used if the input id and physical path
+ * of the node still match.
+ */
+final class LinuxDeviceCache {
+    private final static int MAGIC = 0x4a494443;
+    private final static int FORMAT_VERSION = 1;
+    /* The types guessType() can return, encoded by index. Index 0 is null */
+    private final static Type[] TYPES = {null, Type.UNKNOWN, Type.MOUSE, Type.KEYBOARD, Type.GAMEPAD, Type.STICK};
+
+    private final File file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    private LinuxDeviceCache(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the cache from a file. A missing or unreadable file gives an
+     * empty cache that is written on the next save.
+     */
+    static LinuxDeviceCache load(String file_name) {
+        LinuxDeviceCache cache = new LinuxDeviceCache(new File(file_name));
+        AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
+            if (!cache.file.exists())
+                return null;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cache.file)))) {
+                cache.read(in);
+            } catch (IOException e) {
+                ControllerEnvironment.logln("Failed to read device cache " + cache.file + ": " + e);
+                cache.entries.clear();
+                cache.dirty = true;
+            }
+            return null;
+        });
+        return cache;
+    }
+
+    /**
+     * Writes the cache back to its file if entries changed. The file is
+     * replaced in one step so that concurrent readers never see half of it.
+     */
+    final synchronized void save() {
+        if (!dirty)
+            return;
+        AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
+            File temp_file = new File(file.getPath() + ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp_file)))) {
+                    write(out);
+                }
+                Files.move(temp_file.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                // a failed write is retried by the next save
+                dirty = false;
+            } catch (IOException e) {
+                ControllerEnvironment.logln("Failed to write device cache " + file + ": " + e.getMessage());
+                temp_file.delete();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Returns the entry for a device node if it was stored for the same
+     * device, or null. Entries stored without probing force feedback don't
+     * match when force feedback is wanted.
+     */
+    final Entry lookup(String path, LinuxInputID input_id, String phys, boolean detect_rumblers) {
+        Entry entry = entries.get(path);
+        if (entry == null || !entry.matches(input_id, phys) || (detect_rumblers && !entry.rumblers_detected))
+            return null;
+        return entry;
+    }
+
+    /* Stores the capabilities of a freshly probed device */
+    final synchronized void store(String path, LinuxInputID input_id, String phys, LinuxEventDevice device, boolean rumblers_detected) {
+        entries.put(path, new Entry(input_id, phys, device, rumblers_detected));
+        dirty = true;
+    }
+
+    private void read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION)
+            throw new IOException("Unknown format");
+        int num_entries = in.readInt();
+        for (int i = 0; i < num_entries; i++) {
+            String path = in.readUTF();
+            entries.put(path, new Entry(in));
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        // copy first, entries can be stored concurrently
+        List<Map.Entry<String, Entry>> snapshot = new ArrayList<>(entries.entrySet());
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(snapshot.size());
+        for (Map.Entry<String, Entry> entry : snapshot) {
+            out.writeUTF(entry.getKey());
+            entry.getValue().write(out);
+        }
+    }
+
+    /**
+     * The cached capabilities of one device
+     */
+    static final class Entry {
+        private final int bustype;
+        private final int vendor;
+        private final int product;
+        private final int version;
+        private final String phys;
+        private final String name;
+        private final Type type;
+        private final boolean rumblers_detected;
+        private final boolean has_rumbler;
+        /* Native type and code of each component, and the limits of EV_ABS components */
+        private final int[] native_types;
+        private final int[] native_codes;
+        private final int[] mins;
+        private final int[] maxs;
+        private final int[] flats;
+
+        private Entry(LinuxInputID input_id, String phys, LinuxEventDevice device, boolean rumblers_detected) {
+            this.bustype = input_id.getBusType();
+            this.vendor = input_id.getVendor();
+            this.product = input_id.getProduct();
+            this.version = input_id.getVersion();
+            this.phys = phys;
+            this.name = device.getName();
+            this.type = device.getType();
+            this.rumblers_detected = rumblers_detected;
+            this.has_rumbler = device.getRumblers().length > 0;
+            List<?> components = device.getComponents();
+            int num_components = components.size();
+            native_types = new int[num_components];
+            native_codes = new int[num_components];
+            mins = new int[num_components];
+            maxs = new int[num_components];
+            flats = new int[num_components];
+            for (int i = 0; i < num_components; i++) {
+                LinuxEventComponent component = (LinuxEventComponent) components.get(i);
+                native_types[i] = component.getDescriptor().getType();
+                native_codes[i] = component.getDescriptor().getCode();
+                mins[i] = component.getMin();
+                maxs[i] = component.getMax();
+                flats[i] = component.getFlat();
+            }
+        }
+
+        private Entry(DataInputStream in) throws IOException {
+            this.bustype = in.readInt();
+            this.vendor = in.readInt();
+            this.product = in.readInt();
+            this.version = in.readInt();
+            this.phys = in.readUTF();
+            this.name = in.readUTF();
+            int type_index = in.readByte();
+            if (type_index < 0 || type_index >= TYPES.length)
+                throw new IOException("Unknown device type " + type_index);
+            this.type = TYPES[type_index];
+            this.rumblers_detected = in.readBoolean();
+            this.has_rumbler = in.readBoolean();
+            int num_components = in.readInt();
+            if (num_components < 0)
+                throw new IOException("Invalid component count " + num_components);
+            native_types = new int[num_components];
+            native_codes = new int[num_components];
+            mins = new int[num_components];
+            maxs = new int[num_components];
+            flats = new int[num_components];
+            for (int i = 0; i < num_components; i++) {
+                native_types[i] = in.readUnsignedShort();
+                native_codes[i] = in.readUnsignedShort();
+                if (!isValidComponent(native_types[i], native_codes[i]))
+                    throw new IOException("Invalid component type " + native_types[i] + " code " + native_codes[i]);
+                if (native_types[i] == NativeDefinitions.EV_ABS) {
+                    mins[i] = in.readInt();
+                    maxs[i] = in.readInt();
+                    flats[i] = in.readInt();
+                }
+            }
+        }
+
+        private static boolean isValidComponent(int native_type, int native_code) {
+            switch (native_type) {
+                case NativeDefinitions.EV_KEY:
+                    return native_code <= NativeDefinitions.KEY_MAX;
+                case NativeDefinitions.EV_ABS:
+                    return native_code <= NativeDefinitions.ABS_MAX;
+                case NativeDefinitions.EV_REL:
+                    return native_code <= NativeDefinitions.REL_MAX;
+                default:
+                    return false;
+            }
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeInt(bustype);
+            out.writeInt(vendor);
+            out.writeInt(product);
+            out.writeInt(version);
+            out.writeUTF(phys);
+            out.writeUTF(name);
+            int type_index = 0;
+            for (int i = 1; i < TYPES.length; i++) {
+                if (TYPES[i] == type)
+                    type_index = i;
+            }
+            out.writeByte(type_index);
+            out.writeBoolean(rumblers_detected);
+            out.writeBoolean(has_rumbler);
+            out.writeInt(native_types.length);
+            for (int i = 0; i < native_types.length; i++) {
+                out.writeShort(native_types[i]);
+                out.writeShort(native_codes[i]);
+                if (native_types[i] == NativeDefinitions.EV_ABS) {
+                    out.writeInt(mins[i]);
+                    out.writeInt(maxs[i]);
+                    out.writeInt(flats[i]);
+                }
+            }
+        }
+
+        private boolean matches(LinuxInputID input_id, String phys) {
+            return input_id.getBusType() == bustype && input_id.getVendor() == vendor &&
+                    input_id.getProduct() == product && input_id.getVersion() == version &&
+                    this.phys.equals(phys);
+        }
+
+        final String getName() {
+            return name;
+        }
+
+        final Type getType() {
+            return type;
+        }
+
+        final boolean hasRumbler() {
+            return has_rumbler;
+        }
+
+        /* Creates the components of the device from the cached layout, without any ioctls */
+        final List<LinuxEventComponent> createComponents(LinuxEventDevice device) {
+            List<LinuxEventComponent> components = new ArrayList<>();
+            LinuxAbsInfo abs_info = new LinuxAbsInfo();
+            for (int i = 0; i < native_types.length; i++) {
+                int native_code = native_codes[i];
+                switch (native_types[i]) {
+                    case NativeDefinitions.EV_KEY:
+                        components.add(new LinuxEventComponent(device, LinuxNativeTypesMap.getButtonID(native_code), false, NativeDefinitions.EV_KEY, native_code, null));
+                        break;
+                    case NativeDefinitions.EV_ABS:
+                        abs_info.set(0, mins[i], maxs[i], 0, flats[i]);
+                        components.add(new LinuxEventComponent(device, LinuxNativeTypesMap.getAbsAxisID(native_code), false, NativeDefinitions.EV_ABS, native_code, abs_info));
+                        break;
+                    case NativeDefinitions.EV_REL:
+                        components.add(new LinuxEventComponent(device, LinuxNativeTypesMap.getRelAxisID(native_code), true, NativeDefinitions.EV_REL, native_code, null));
+                        break;
+                }
+            }
+            return components;
+        }
+    }
+}
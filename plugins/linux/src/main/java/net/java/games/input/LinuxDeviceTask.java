@@ -25,47 +25,11 @@
  */
 package net.java.games.input;
 
-import org.jetbrains.annotations.Contract;
-
 import java.io.IOException;
 
-abstract class LinuxDeviceTask<T> {
-    public final static int IN_PROGRESS = 1;
-    public final static int COMPLETED = 2;
-    public final static int FAILED = 3;
-
-    public enum State {
-        IN_PROGRESS, COMPLETED, FAILED
-    }
-
-    private T result;
-    private IOException exception;
-    private State state = State.IN_PROGRESS;
-
-    public final void doExecute() {
-        try {
-            result = execute();
-            state = State.COMPLETED;
-        } catch (IOException e) {
-            exception = e;
-            state = State.FAILED;
-        }
-    }
-
-    @Contract(pure = true)
-    public final IOException getException() {
-        return exception;
-    }
-
-    @Contract(pure = true)
-    public final T getResult() {
-        return result;
-    }
-
-    @Contract(pure = true)
-    public final State getState() {
-        return state;
-    }
-
-    protected abstract T execute() throws IOException;
-}
\ No newline at end of file
+/**
+ * A piece of work that must run on the device thread, see LinuxDeviceThread
+ */
+interface LinuxDeviceTask<T> {
+    T execute() throws IOException;
+}
@@ -26,8 +26,14 @@
 package net.java.games.input;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.InterruptedIOException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Linux doesn't have proper support for force feedback
@@ -38,56 +44,87 @@ import java.util.List;
  * (including the final device close that performs
  *  and implicit deletion of all the process' effects)
  * is run on a single thread.
+ * <p>
+ * Tasks are handed to the thread through a lock-free queue and the thread
+ * parks while the queue is empty. Every submission gets its own future, so
+ * callers can either wait for the result or carry on.
  */
 final class LinuxDeviceThread extends Thread {
-    private final List<LinuxDeviceTask> tasks = new ArrayList<>();
+    /* How long execute waits for a task before giving up */
+    private static final long TASK_TIMEOUT_MILLIS = 5000;
+
+    private final Queue<Submission<?>> tasks = new ConcurrentLinkedQueue<>();
 
 
 	public LinuxDeviceThread() {
+		super("jinput device thread");
 		setDaemon(true);
 		start();
 	}
 
-    public synchronized final void run() {
-        while (!Thread.currentThread().isInterrupted()) {
-            if (!tasks.isEmpty()) {
-                LinuxDeviceTask task = tasks.remove(0);
-                task.doExecute();
-                synchronized (task) {
-                    task.notify();
-                }
-            } else {
-                try {
-                    wait();
-                } catch (InterruptedException ignored) {
-                    return;
-                }
-            }
+    public final void run() {
+        while (!isInterrupted()) {
+            Submission<?> submission = tasks.poll();
+            if (submission != null)
+                submission.run();
+            else
+                LockSupport.park(this);
         }
     }
 
+    /**
+     * Queues the task and returns a future that completes with its result,
+     * without waiting for the task to run.
+     */
+    public final <T> CompletableFuture<T> submit(LinuxDeviceTask<T> task) {
+        Submission<T> submission = new Submission<>(task);
+        tasks.offer(submission);
+        LockSupport.unpark(this);
+        return submission.future;
+    }
+
+    /**
+     * Runs the task on the device thread and waits for its result. An
+     * interrupt while waiting restores the interrupt status and fails with
+     * an InterruptedIOException, although the task itself still runs.
+     */
     public final <T> T execute(LinuxDeviceTask<T> task) throws IOException {
-        synchronized (this) {
-            tasks.add(task);
-            notify();
+        if (Thread.currentThread() == this)
+            return task.execute();
+        CompletableFuture<T> future = submit(task);
+        try {
+            return future.get(TASK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for device task");
+        } catch (TimeoutException e) {
+            throw new IOException("Device task timed out after " + TASK_TIMEOUT_MILLIS + " ms");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IOException(cause);
         }
-        synchronized (task) {
-            while (task.getState() == LinuxDeviceTask.State.IN_PROGRESS) {
-                try {
-                    task.wait();
-                } catch (InterruptedException e) {
-                    // ignore
-                }
-            }
+    }
+
+    private static final class Submission<T> {
+        private final LinuxDeviceTask<T> task;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Submission(LinuxDeviceTask<T> task) {
+            this.task = task;
         }
 
-        switch (task.getState()) {
-            case COMPLETED:
-                return task.getResult();
-            case FAILED:
-                throw task.getException();
-            default:
-                throw new RuntimeException("Invalid task state: " + task.getState());
+        final void run() {
+            try {
+                future.complete(task.execute());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
         }
     }
 }
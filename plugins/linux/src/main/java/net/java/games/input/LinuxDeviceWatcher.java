@@ -0,0 +1,144 @@
+/**
+ * Copyright (C) 2003 Jeremy Booth (jeremy@newdawnsoftware.com)
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution.
+ * The name of the author may not be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ */
+package net.java.games.input;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Watches a device directory with inotify and tells the plugin about
+ * device nodes that appear or disappear, so that controllers can be
+ * plugged in and out while the application runs.
+ */
+final class LinuxDeviceWatcher implements Runnable {
+    /* Event masks from sys/inotify.h */
+    private static final int IN_ATTRIB = 0x00000004;
+    private static final int IN_MOVED_FROM = 0x00000040;
+    private static final int IN_MOVED_TO = 0x00000080;
+    private static final int IN_CREATE = 0x00000100;
+    private static final int IN_DELETE = 0x00000200;
+    private static final int IN_Q_OVERFLOW = 0x00004000;
+    /* Size of struct inotify_event without the trailing name */
+    private static final int EVENT_HEADER_SIZE = 16;
+
+    private final LinuxEnvironmentPlugin plugin;
+    private final String dir_path;
+    private final long inotify_fd;
+    private final long wakeup_fd;
+    private final ByteBuffer event_buffer = ByteBuffer.allocateDirect(4096).order(ByteOrder.nativeOrder());
+    private final Thread thread;
+    private volatile boolean stopped;
+
+    public LinuxDeviceWatcher(LinuxEnvironmentPlugin plugin, String dir_path) throws IOException {
+        this.plugin = plugin;
+        this.dir_path = dir_path;
+        this.inotify_fd = nCreate(dir_path);
+        try {
+            this.wakeup_fd = nCreateWakeup();
+        } catch (IOException e) {
+            nClose(inotify_fd);
+            throw e;
+        }
+        this.thread = new Thread(this, "jinput device watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static native long nCreate(String dir_path) throws IOException;
+
+    private static native long nCreateWakeup() throws IOException;
+
+    /* Returns the number of bytes read, or -1 if the watcher was woken up */
+    private static native int nRead(long inotify_fd, long wakeup_fd, ByteBuffer buffer) throws IOException;
+
+    private static native void nWakeup(long wakeup_fd) throws IOException;
+
+    private static native void nClose(long fd) throws IOException;
+
+    public final void run() {
+        try {
+            while (!stopped) {
+                int num_bytes = nRead(inotify_fd, wakeup_fd, event_buffer);
+                if (num_bytes == -1)
+                    break;
+                processEvents(num_bytes);
+            }
+        } catch (IOException e) {
+            LinuxEnvironmentPlugin.logln("Device watcher failed: " + e.getMessage());
+        } finally {
+            try {
+                nClose(wakeup_fd);
+                nClose(inotify_fd);
+            } catch (IOException e) {
+                LinuxEnvironmentPlugin.logln("Failed to close device watcher: " + e.getMessage());
+            }
+        }
+    }
+
+    private void processEvents(int num_bytes) {
+        int offset = 0;
+        while (offset + EVENT_HEADER_SIZE <= num_bytes) {
+            int mask = event_buffer.getInt(offset + 4);
+            int name_length = event_buffer.getInt(offset + 12);
+            String name = getName(offset + EVENT_HEADER_SIZE, name_length);
+            offset += EVENT_HEADER_SIZE + name_length;
+            if ((mask & IN_Q_OVERFLOW) != 0)
+                plugin.rescanDeviceNodes();
+            else if ((mask & (IN_DELETE | IN_MOVED_FROM)) != 0)
+                plugin.deviceNodeRemoved(dir_path + "/" + name);
+            else if ((mask & (IN_CREATE | IN_MOVED_TO | IN_ATTRIB)) != 0)
+                plugin.deviceNodeAdded(dir_path + "/" + name, name);
+        }
+    }
+
+    /* The name is padded with NUL bytes */
+    private String getName(int offset, int max_length) {
+        byte[] bytes = new byte[max_length];
+        int length = 0;
+        while (length < max_length && (bytes[length] = event_buffer.get(offset + length)) != 0)
+            length++;
+        return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Stops the watcher thread and waits for it to exit.
+     */
+    public final void stop() {
+        if (stopped)
+            return;
+        stopped = true;
+        try {
+            nWakeup(wakeup_fd);
+            thread.join();
+        } catch (IOException e) {
+            LinuxEnvironmentPlugin.logln("Failed to stop device watcher: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
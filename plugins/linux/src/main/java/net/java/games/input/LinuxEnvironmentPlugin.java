@@ -41,15 +41,46 @@ import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /** Environment plugin for linux
+ * <p>
+ * Setting the net.java.games.input.linux.eventReader system property to
+ * true makes the plugin read device events on a background thread as soon
+ * as they arrive, see LinuxEventReader. Applications then take events from
+ * the controllers' event queues or subscriptions instead of polling.
+ * <p>
+ * Setting the net.java.games.input.linux.hotplug system property to true
+ * makes the plugin watch for controllers plugged in or out while it is
+ * running and report them to the ControllerListeners of the plugin.
+ * Hotplugged joystick and event devices are not combined into a single
+ * controller.
+ *
  * @author elias
  * @author Jeremy Booth (jeremy@newdawnsoftware.com)
  */
 public final class LinuxEnvironmentPlugin extends ControllerEnvironment implements Plugin {
     private final static String LIBNAME = "jinput-linux";
     private final static String POSTFIX64BIT = "64";
+    private final static String EVENT_READER_PROPERTY = "net.java.games.input.linux.eventReader";
+    private final static String HOTPLUG_PROPERTY = "net.java.games.input.linux.hotplug";
+    private final static String FRAME_MODE_PROPERTY = "net.java.games.input.linux.frameMode";
+    private final static String EXCLUSIVE_PROPERTY = "net.java.games.input.linux.exclusive";
+    private final static String DEVICE_CACHE_PROPERTY = "net.java.games.input.linux.deviceCache";
+    private final static String DEVICE_DIR = "/dev/input";
+    /* Upper bound on the threads opening devices in parallel during enumeration */
+    private final static int MAX_PROBE_THREADS = 8;
     private final static LinuxDeviceThread device_thread = new LinuxDeviceThread();
     private static boolean supported = false;
 
@@ -65,13 +96,38 @@ public final class LinuxEnvironmentPlugin extends ControllerEnvironment implemen
         }
     }
 
-    private final Controller[] controllers;
+    /* Replaced as a whole when controllers are plugged in or out */
+    private volatile Controller[] controllers;
+    /* The state below is guarded by the plugin monitor once the device watcher runs */
     private final List<LinuxDevice> devices = new ArrayList<>();
+    /* The device each controller reads its events from */
+    private final Map<Controller, LinuxDevice> controller_devices = new HashMap<>();
+    /* The open devices by device node and the controller each belongs to */
+    private final Map<String, LinuxDevice> path_devices = new HashMap<>();
+    private final Map<LinuxDevice, Controller> device_controllers = new HashMap<>();
+    /* Capabilities of the evdev devices opened before, or null if not enabled */
+    private final LinuxDeviceCache device_cache;
+    private LinuxEventReader event_reader;
+    private LinuxDeviceWatcher device_watcher;
 
+    /**
+     * Setting the net.java.games.input.linux.deviceCache system property to
+     * a file name caches the capabilities of evdev devices in that file, so
+     * that devices which have not changed are opened with far fewer ioctls
+     * on the next start.
+     */
     public LinuxEnvironmentPlugin() {
+        String device_cache_file = getPrivilegedProperty(DEVICE_CACHE_PROPERTY);
+        this.device_cache = device_cache_file != null && isSupported() ? LinuxDeviceCache.load(device_cache_file) : null;
         if (isSupported()) {
             this.controllers = enumerateControllers();
+            if (device_cache != null)
+                device_cache.save();
             logln("Linux plugin claims to have found " + controllers.length + " controllers");
+            if (Boolean.parseBoolean(getPrivilegedProperty(EVENT_READER_PROPERTY, "false")))
+                startEventReader();
+            if (Boolean.parseBoolean(getPrivilegedProperty(HOTPLUG_PROPERTY, "false")))
+                startDeviceWatcher();
             AccessController.doPrivileged(
                     (PrivilegedAction<Object>) () -> {
                         Runtime.getRuntime().addShutdownHook(new ShutdownHook());
@@ -119,6 +175,114 @@ public final class LinuxEnvironmentPlugin extends ControllerEnvironment implemen
         return device_thread.execute(task);
     }
 
+    /* Returns the evdev device a controller of this plugin was created from, or null */
+    static LinuxEventDevice getEventDevice(Controller controller) {
+        if (controller instanceof LinuxAbstractController)
+            return ((LinuxAbstractController) controller).getDevice();
+        else if (controller instanceof LinuxMouse)
+            return ((LinuxMouse) controller).getDevice();
+        else if (controller instanceof LinuxKeyboard)
+            return ((LinuxKeyboard) controller).getDevice();
+        else if (controller instanceof LinuxCombinedController)
+            return ((LinuxCombinedController) controller).getEventController().getDevice();
+        else
+            return null;
+    }
+
+    /**
+     * Turns SYN_REPORT frame mode on or off for a controller of this plugin.
+     * In frame mode a poll only delivers the events of frames the device has
+     * completed, and every event of a frame carries the time of the
+     * SYN_REPORT that ended it, so consumers can group events into frames by
+     * Event.getNanos(). The net.java.games.input.linux.frameMode system
+     * property sets the mode for all devices when they are opened.
+     *
+     * @return false if the controller doesn't read its events from an evdev
+     * device, such as a controller backed by a joystick device
+     */
+    public static boolean setFrameMode(Controller controller, boolean enabled) {
+        LinuxEventDevice device = getEventDevice(controller);
+        if (device == null || controller instanceof LinuxCombinedController)
+            return false;
+        device.setFrameMode(enabled);
+        return true;
+    }
+
+    /**
+     * Grabs a controller of this plugin for exclusive use with EVIOCGRAB, or
+     * releases the grab. A grabbed device delivers its events only to this
+     * plugin, not to the X server or other readers of the device node. The
+     * net.java.games.input.linux.exclusive system property grabs every
+     * controller that reads from its event device once it has been paired
+     * with its joystick device, if any.
+     *
+     * @return false if the grab failed, for instance because another process
+     * holds it, or if the controller doesn't read its events from an evdev
+     * device. Controllers backed by a joystick device can't be grabbed since
+     * the grab would starve the joystick device too.
+     */
+    public static boolean setExclusive(Controller controller, boolean exclusive) {
+        LinuxEventDevice device = getEventDevice(controller);
+        if (device == null || controller instanceof LinuxCombinedController)
+            return false;
+        try {
+            device.setExclusive(exclusive);
+            return true;
+        } catch (IOException e) {
+            logln("Failed to " + (exclusive ? "grab" : "release") + " device " + device.getName() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Returns how often the kernel dropped events of a controller of this
+     * plugin because they were not read in time. Each overrun is followed by
+     * a resync of the controller's key and axis states.
+     *
+     * @return the overrun count, or -1 if the controller doesn't read its
+     * events from an evdev device
+     */
+    public static long getOverrunCount(Controller controller) {
+        LinuxEventDevice device = getEventDevice(controller);
+        if (device == null || controller instanceof LinuxCombinedController)
+            return -1;
+        return device.getOverrunCount();
+    }
+
+    /**
+     * Returns whether any key or button of a controller of this plugin is
+     * pressed, according to the events read from the controller so far.
+     *
+     * @return true if a key is pressed, false if none is or the controller
+     * doesn't read its events from an evdev device
+     */
+    public static boolean isAnyKeyPressed(Controller controller) {
+        LinuxEventDevice device = getEventDevice(controller);
+        if (device == null || controller instanceof LinuxCombinedController)
+            return false;
+        return device.isAnyKeySet();
+    }
+
+    /**
+     * Returns the first pressed Linux key code (KEY_* or BTN_*) of a
+     * controller of this plugin at or after from_code. Iterate all pressed
+     * keys by passing the previous result plus one.
+     *
+     * @return the key code, or -1 if no further key is pressed or the
+     * controller doesn't read its events from an evdev device
+     */
+    public static int getNextPressedKey(Controller controller, int from_code) {
+        LinuxEventDevice device = getEventDevice(controller);
+        if (device == null || controller instanceof LinuxCombinedController)
+            return -1;
+        return device.getNextSetKey(from_code);
+    }
+
+    /* Runs the task on the device thread without waiting for it */
+    static <T> CompletableFuture<T> submit(LinuxDeviceTask<T> task) {
+        return device_thread.submit(task);
+    }
+
     private static Component[] createComponents(List event_components, LinuxEventDevice device) {
         LinuxEventComponent[][] povs = new LinuxEventComponent[4][2];
         List<LinuxComponent> components = new ArrayList<>();
@@ -360,12 +524,129 @@ public final class LinuxEnvironmentPlugin extends ControllerEnvironment implemen
         return controllers;
     }
 
+    private void startEventReader() {
+        try {
+            event_reader = new LinuxEventReader();
+            for (Controller controller : controllers)
+                event_reader.register(controller, controller_devices.get(controller));
+        } catch (IOException e) {
+            logln("Failed to start event reader: " + e.getMessage());
+            if (event_reader != null) {
+                event_reader.stop();
+                event_reader = null;
+            }
+        }
+    }
+
+    private void startDeviceWatcher() {
+        try {
+            device_watcher = new LinuxDeviceWatcher(this, DEVICE_DIR);
+        } catch (IOException e) {
+            logln("Failed to watch " + DEVICE_DIR + " for new controllers: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Called by the device watcher when a node appears in the device
+     * directory. Opens the node unless it is already open.
+     */
+    final void deviceNodeAdded(String path, String name) {
+        Controller controller;
+        synchronized (this) {
+            if (path_devices.containsKey(path))
+                return;
+            if (name.startsWith("event")) {
+                controller = openEventController(path);
+                if (controller != null)
+                    applyExclusiveProperty(controller);
+            } else if (name.startsWith("js"))
+                controller = openJoystickController(path);
+            else
+                return;
+            if (controller == null)
+                return;
+            Controller[] new_controllers = Arrays.copyOf(controllers, controllers.length + 1);
+            new_controllers[controllers.length] = controller;
+            controllers = new_controllers;
+            if (event_reader != null) {
+                try {
+                    event_reader.register(controller, controller_devices.get(controller));
+                } catch (IOException e) {
+                    logln("Failed to read events from " + path + ": " + e.getMessage());
+                }
+            }
+        }
+        logln("Linux plugin found new controller " + controller.getName() + " at " + path);
+        fireControllerAdded(controller);
+    }
+
+    /**
+     * Called by the device watcher when a node disappears from the device
+     * directory. Closes every device of the controller the node belonged to.
+     */
+    final void deviceNodeRemoved(String path) {
+        Controller controller;
+        synchronized (this) {
+            LinuxDevice removed_device = path_devices.remove(path);
+            if (removed_device == null)
+                return;
+            controller = device_controllers.get(removed_device);
+            if (event_reader != null)
+                event_reader.unregister(controller);
+            // a combined controller goes away with either of its devices
+            Iterator<Map.Entry<LinuxDevice, Controller>> it = device_controllers.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<LinuxDevice, Controller> entry = it.next();
+                if (entry.getValue() == controller) {
+                    LinuxDevice device = entry.getKey();
+                    it.remove();
+                    devices.remove(device);
+                    path_devices.values().remove(device);
+                    try {
+                        device.close();
+                    } catch (IOException e) {
+                        logln("Failed to close device: " + e.getMessage());
+                    }
+                }
+            }
+            controller_devices.remove(controller);
+            List<Controller> new_controllers = new ArrayList<>(Arrays.asList(controllers));
+            new_controllers.remove(controller);
+            controllers = new_controllers.toArray(new Controller[new_controllers.size()]);
+        }
+        logln("Linux plugin lost controller " + controller.getName() + " at " + path);
+        fireControllerRemoved(controller);
+    }
+
+    /**
+     * Called by the device watcher when it may have missed changes. Brings
+     * the open devices in line with the nodes in the device directory.
+     */
+    final void rescanDeviceNodes() {
+        File[] files = listFilesPrivileged(new File(DEVICE_DIR), (dir, name) -> name.startsWith("event") || name.startsWith("js"));
+        Set<String> paths = new HashSet<>();
+        if (files != null) {
+            for (File file : files) {
+                String path = getAbsolutePathPrivileged(file);
+                paths.add(path);
+                deviceNodeAdded(path, file.getName());
+            }
+        }
+        Set<String> open_paths;
+        synchronized (this) {
+            open_paths = new HashSet<>(path_devices.keySet());
+        }
+        for (String path : open_paths) {
+            if (!paths.contains(path))
+                deviceNodeRemoved(path);
+        }
+    }
+
     private Controller[] enumerateControllers() {
         List<Controller> controllers = new ArrayList<>();
         List<Controller> eventControllers = new ArrayList<>();
         List<Controller> jsControllers = new ArrayList<>();
-        enumerateEventControllers(eventControllers);
-        enumerateJoystickControllers(jsControllers);
+        enumerateDevices(eventControllers, jsControllers);
 
         for (int i = 0; i < eventControllers.size(); i++) {
             for (int j = 0; j < jsControllers.size(); j++) {
@@ -389,7 +670,14 @@ public final class LinuxEnvironmentPlugin extends ControllerEnvironment implemen
                         }
 
                         if (!foundADifference) {
-                            controllers.add(new LinuxCombinedController((LinuxAbstractController) eventControllers.remove(i), (LinuxJoystickAbstractController) jsControllers.remove(j)));
+                            Controller combined = new LinuxCombinedController((LinuxAbstractController) eventControllers.remove(i), (LinuxJoystickAbstractController) jsControllers.remove(j));
+                            LinuxDevice evDevice = controller_devices.remove(evController);
+                            LinuxDevice jsDevice = controller_devices.remove(jsController);
+                            // the combined controller only reads events from the joystick device
+                            controller_devices.put(combined, jsDevice);
+                            device_controllers.put(evDevice, combined);
+                            device_controllers.put(jsDevice, combined);
+                            controllers.add(combined);
                             i--;
 //							j--;
                             break;
@@ -398,6 +686,9 @@ public final class LinuxEnvironmentPlugin extends ControllerEnvironment implemen
                 }
             }
         }
+        // only now is it known which event controllers read from their own event device
+        for (Controller controller : eventControllers)
+            applyExclusiveProperty(controller);
         controllers.addAll(eventControllers);
         controllers.addAll(jsControllers);
 
@@ -406,66 +697,192 @@ public final class LinuxEnvironmentPlugin extends ControllerEnvironment implemen
         return controllers_array;
     }
 
-    private void enumerateJoystickControllers(List<Controller> controllers) {
-        File[] joystick_device_files = enumerateJoystickDeviceFiles("/dev/input");
+    /**
+     * Opens all event and joystick device nodes in parallel and adds their
+     * controllers to the lists in file name order, independent of the order
+     * the probes complete in.
+     */
+    private void enumerateDevices(List<Controller> eventControllers, List<Controller> jsControllers) {
+        List<String> event_paths = listEventDevicePaths();
+        List<String> joystick_paths = listJoystickDevicePaths();
+        List<Callable<ProbedDevice>> probes = new ArrayList<>();
+        for (String path : event_paths)
+            probes.add(() -> probeEventDevice(path, device_cache));
+        for (String path : joystick_paths)
+            probes.add(() -> probeJoystickDevice(path));
+        List<ProbedDevice> probed_devices = probeDevices(probes);
+        for (int i = 0; i < probed_devices.size(); i++) {
+            ProbedDevice probed = probed_devices.get(i);
+            if (probed == null)
+                continue;
+            addDevice(probed.path, probed.device, probed.controller);
+            if (i < event_paths.size())
+                eventControllers.add(probed.controller);
+            else
+                jsControllers.add(probed.controller);
+        }
+    }
+
+    /* Runs the probes on a bounded pool and returns their results in the order of the probes */
+    private static List<ProbedDevice> probeDevices(List<Callable<ProbedDevice>> probes) {
+        List<ProbedDevice> probed_devices = new ArrayList<>();
+        if (probes.isEmpty())
+            return probed_devices;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(probes.size(), MAX_PROBE_THREADS), runnable -> {
+            Thread thread = new Thread(runnable, "jinput device probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        boolean interrupted = false;
+        try {
+            List<Future<ProbedDevice>> futures = new ArrayList<>();
+            for (Callable<ProbedDevice> probe : probes)
+                futures.add(pool.submit(probe));
+            // wait for every probe, so no opened device is lost
+            for (Future<ProbedDevice> future : futures) {
+                while (true) {
+                    try {
+                        probed_devices.add(future.get());
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        logln("Failed to probe device: " + e.getCause());
+                        probed_devices.add(null);
+                        break;
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+        return probed_devices;
+    }
+
+    private static List<String> listJoystickDevicePaths() {
+        File[] joystick_device_files = enumerateJoystickDeviceFiles(DEVICE_DIR);
         if (joystick_device_files == null || joystick_device_files.length == 0) {
             joystick_device_files = enumerateJoystickDeviceFiles("/dev");
             if (joystick_device_files == null)
-                return;
-        }
-        for (File event_file : joystick_device_files) {
-            try {
-                String path = getAbsolutePathPrivileged(event_file);
-                LinuxJoystickDevice device = new LinuxJoystickDevice(path);
-                Controller controller = createJoystickFromJoystickDevice(device);
-                if (controller != null) {
-                    controllers.add(controller);
-                    devices.add(device);
-                } else
-                    device.close();
-            } catch (IOException e) {
-                logln("Failed to open device (" + event_file + "): " + e.getMessage());
-            }
+                return new ArrayList<>();
         }
+        List<String> paths = new ArrayList<>();
+        for (File joystick_file : joystick_device_files)
+            paths.add(getAbsolutePathPrivileged(joystick_file));
+        return paths;
     }
 
-    private void enumerateEventControllers(List<Controller> controllers) {
-        final File dev = new File("/dev/input");
+    private static List<String> listEventDevicePaths() {
+        final File dev = new File(DEVICE_DIR);
         File[] event_device_files = listFilesPrivileged(dev, (dir, name) -> name.startsWith("event"));
+        List<String> paths = new ArrayList<>();
         if (event_device_files == null)
-            return;
-        for (File event_file : event_device_files) {
+            return paths;
+        for (File event_file : event_device_files)
+            paths.add(getAbsolutePathPrivileged(event_file));
+        return paths;
+    }
+
+    /* Opens a joystick device node and creates its controller, or returns null */
+    private Controller openJoystickController(String path) {
+        ProbedDevice probed = probeJoystickDevice(path);
+        if (probed == null)
+            return null;
+        addDevice(path, probed.device, probed.controller);
+        return probed.controller;
+    }
+
+    /* Opens an event device node and creates its controller, or returns null */
+    private Controller openEventController(String path) {
+        ProbedDevice probed = probeEventDevice(path, device_cache);
+        if (device_cache != null)
+            device_cache.save();
+        if (probed == null)
+            return null;
+        addDevice(path, probed.device, probed.controller);
+        return probed.controller;
+    }
+
+    /* Grabs a controller reading from its event device if the exclusive property is set */
+    private static void applyExclusiveProperty(Controller controller) {
+        if (Boolean.parseBoolean(getPrivilegedProperty(EXCLUSIVE_PROPERTY, "false")))
+            setExclusive(controller, true);
+    }
+
+    private void addDevice(String path, LinuxDevice device, Controller controller) {
+        devices.add(device);
+        controller_devices.put(controller, device);
+        path_devices.put(path, device);
+        device_controllers.put(device, controller);
+    }
+
+    /* Probes do not touch the plugin state, so they can run in parallel */
+    private static ProbedDevice probeJoystickDevice(String path) {
+        try {
+            LinuxJoystickDevice device = new LinuxJoystickDevice(path);
+            Controller controller = createJoystickFromJoystickDevice(device);
+            if (controller != null)
+                return new ProbedDevice(path, device, controller);
+            device.close();
+        } catch (IOException e) {
+            logln("Failed to open device (" + path + "): " + e.getMessage());
+        }
+        return null;
+    }
+
+    private static ProbedDevice probeEventDevice(String path, LinuxDeviceCache device_cache) {
+        try {
+            LinuxEventDevice device = new LinuxEventDevice(path, device_cache);
+            device.setFrameMode(Boolean.parseBoolean(getPrivilegedProperty(FRAME_MODE_PROPERTY, "false")));
             try {
-                String path = getAbsolutePathPrivileged(event_file);
-                LinuxEventDevice device = new LinuxEventDevice(path);
-                try {
-                    Controller controller = createControllerFromDevice(device);
-                    if (controller != null) {
-                        controllers.add(controller);
-                        devices.add(device);
-                    } else
-                        device.close();
-                } catch (IOException e) {
-                    logln("Failed to create Controller: " + e.getMessage());
-                    device.close();
-                }
+                Controller controller = createControllerFromDevice(device);
+                if (controller != null)
+                    return new ProbedDevice(path, device, controller);
+                device.close();
             } catch (IOException e) {
-                logln("Failed to open device (" + event_file + "): " + e.getMessage());
+                logln("Failed to create Controller: " + e.getMessage());
+                device.close();
             }
+        } catch (IOException e) {
+            logln("Failed to open device (" + path + "): " + e.getMessage());
         }
+        return null;
     }
 
     public boolean isSupported() {
         return supported;
     }
 
+    /**
+     * An opened device and the controller created for it
+     */
+    private static final class ProbedDevice {
+        final String path;
+        final LinuxDevice device;
+        final Controller controller;
+
+        ProbedDevice(String path, LinuxDevice device, Controller controller) {
+            this.path = path;
+            this.device = device;
+            this.controller = controller;
+        }
+    }
+
     private final class ShutdownHook extends Thread {
         public final void run() {
-            for (LinuxDevice device : devices) {
-                try {
-                    device.close();
-                } catch (IOException e) {
-                    logln("Failed to close device: " + e.getMessage());
+            if (device_watcher != null)
+                device_watcher.stop();
+            if (event_reader != null)
+                event_reader.stop();
+            synchronized (LinuxEnvironmentPlugin.this) {
+                for (LinuxDevice device : devices) {
+                    try {
+                        device.close();
+                    } catch (IOException e) {
+                        logln("Failed to close device: " + e.getMessage());
+                    }
                 }
             }
         }
@@ -40,6 +40,12 @@ final class LinuxEvent {
         this.value = value;
     }
 
+    public final void set(long nanos, int type, int code, int value) {
+        this.nanos = nanos;
+        this.descriptor.set(type, code);
+        this.value = value;
+    }
+
     public final int getValue() {
         return value;
     }
@@ -43,6 +43,14 @@ final class LinuxEventComponent {
 
 
     public LinuxEventComponent(LinuxEventDevice device, Component.Identifier identifier, boolean is_relative, int native_type, int native_code) throws IOException {
+        this(device, identifier, is_relative, native_type, native_code, readAbsInfo(device, native_type, native_code));
+    }
+
+    /**
+     * Creates a component from already known axis limits. abs_info is only
+     * consulted for EV_ABS components and may be null otherwise.
+     */
+    LinuxEventComponent(LinuxEventDevice device, Component.Identifier identifier, boolean is_relative, int native_type, int native_code, LinuxAbsInfo abs_info) {
         this.device = device;
         this.identifier = identifier;
         if (native_type == NativeDefinitions.EV_KEY)
@@ -53,8 +61,6 @@ final class LinuxEventComponent {
         this.descriptor = new LinuxAxisDescriptor();
         descriptor.set(native_type, native_code);
         if (native_type == NativeDefinitions.EV_ABS) {
-            LinuxAbsInfo abs_info = new LinuxAbsInfo();
-            getAbsInfo(abs_info);
             this.min = abs_info.getMin();
             this.max = abs_info.getMax();
             this.flat = abs_info.getFlat();
@@ -65,6 +71,14 @@ final class LinuxEventComponent {
         }
     }
 
+    private static LinuxAbsInfo readAbsInfo(LinuxEventDevice device, int native_type, int native_code) throws IOException {
+        if (native_type != NativeDefinitions.EV_ABS)
+            return null;
+        LinuxAbsInfo abs_info = new LinuxAbsInfo();
+        device.getAbsInfo(native_code, abs_info);
+        return abs_info;
+    }
+
     public final LinuxEventDevice getDevice() {
         return device;
     }
@@ -74,6 +88,11 @@ final class LinuxEventComponent {
         device.getAbsInfo(descriptor.getCode(), abs_info);
     }
 
+    public final int getAbsValue() {
+        assert descriptor.getType() == NativeDefinitions.EV_ABS;
+        return device.getAbsValue(descriptor.getCode());
+    }
+
     public final Controller.Type getButtonTrait() {
         return button_trait;
     }
@@ -109,6 +128,18 @@ final class LinuxEventComponent {
         }
     }
 
+    final int getMin() {
+        return min;
+    }
+
+    final int getMax() {
+        return max;
+    }
+
+    final int getFlat() {
+        return flat;
+    }
+
     final float getDeadZone() {
         return flat / (2f * (max - min));
     }
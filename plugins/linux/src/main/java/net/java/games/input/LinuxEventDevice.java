@@ -34,32 +34,100 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 /**
  * @author elias
  */
 final class LinuxEventDevice implements LinuxDevice {
-    private final Map<LinuxAxisDescriptor, LinuxComponent> component_map = new HashMap<>();
+    /* Maximum number of events read from the device in one system call */
+    private static final int EVENT_BATCH_SIZE = 64;
+    /* Size of an event record written by nReadEvents: seconds (8 bytes),
+     * microseconds (8 bytes), type (2 bytes), code (2 bytes) and value (4 bytes)
+     */
+    private static final int EVENT_RECORD_SIZE = 24;
+
+    /* Components indexed by event code, one table per event type */
+    private final LinuxComponent[] key_components = new LinuxComponent[NativeDefinitions.KEY_MAX + 1];
+    private final LinuxComponent[] abs_components = new LinuxComponent[NativeDefinitions.ABS_MAX + 1];
+    private final LinuxComponent[] rel_components = new LinuxComponent[NativeDefinitions.REL_MAX + 1];
     private final Rumbler[] rumblers;
     private final long fd;
     private final String name;
     private final LinuxInputID input_id;
     private final List components;
     private final Type type;
-    /* Access to the key_states array could be synchronized, but
-     * it doesn't hurt to have multiple threads read/write from/to it
+    /* Whether the kernel stamps events with CLOCK_MONOTONIC, the clock of
+     * System.nanoTime(), rather than the wall clock
+     */
+    private final boolean monotonic_clock;
+    /* Key states tracked from the event stream, one bit per key code.
+     * Access to the key_states array could be synchronized, but
+     * it doesn't hurt to have multiple threads read from it
+     */
+    private final long[] key_states = new long[NativeDefinitions.KEY_MAX / 64 + 1];
+    /* Absolute axis values tracked from the event stream, indexed by axis code.
+     * Like key_states, reads are not synchronized
      */
-    private final byte[] key_states = new byte[NativeDefinitions.KEY_MAX / 8 + 1];
+    private final int[] abs_values = new int[NativeDefinitions.ABS_MAX + 1];
+    /* Whether abs_values has been read from the device yet */
+    private volatile boolean abs_values_seeded;
+    /* Scratch objects, guarded by the device monitor */
+    private final LinuxEvent scratch_event = new LinuxEvent();
+    private final LinuxAbsInfo scratch_abs_info = new LinuxAbsInfo();
+    /* Events read from the device but not yet returned by getNextEvent,
+     * guarded by the device monitor
+     */
+    private final ByteBuffer event_buffer = ByteBuffer.allocateDirect(EVENT_BATCH_SIZE * EVENT_RECORD_SIZE).order(ByteOrder.nativeOrder());
+    private int num_buffered_events;
+    private int next_buffered_event;
+    /* Frame mode state, guarded by the device monitor. The frame arrays hold
+     * the events read since the last SYN_REPORT. The first complete_frame_size
+     * of them form a complete frame that is being handed out.
+     */
+    private boolean frame_mode;
+    private final LinuxEvent frame_scratch_event = new LinuxEvent();
+    private int[] frame_types = new int[16];
+    private int[] frame_codes = new int[16];
+    private int[] frame_values = new int[16];
+    private int frame_size;
+    private int complete_frame_size;
+    private int next_frame_event;
+    private long frame_nanos;
+    /* SYN_DROPPED state, guarded by the device monitor. The resync arrays
+     * hold the synthesized state events not yet returned by getNextEvent.
+     */
+    private boolean dropping_events;
+    private int[] resync_types = new int[0];
+    private int[] resync_codes = new int[0];
+    private int[] resync_values = new int[0];
+    private int num_resync_events;
+    private int next_resync_event;
+    private long resync_nanos;
+    private volatile long overrun_count;
+    /* Whether the device is grabbed with EVIOCGRAB, guarded by the device monitor */
+    private boolean exclusive;
     /* Closed state variable that protects the validity of the file descriptor.
      *  Access to the closed state must be synchronized
      */
     private boolean closed;
 
     public LinuxEventDevice(String filename) throws IOException {
+        this(filename, (LinuxDeviceCache) null);
+    }
+
+    /**
+     * Opens a device, taking its name, components, force feedback support
+     * and type from the cache if it holds an entry for the same device, and
+     * storing them in the cache otherwise. With a cache hit the axis values
+     * are only read when first needed.
+     */
+    LinuxEventDevice(String filename, LinuxDeviceCache cache) throws IOException {
         long fd;
         boolean detect_rumblers = true;
         try {
@@ -70,22 +138,71 @@ final class LinuxEventDevice implements LinuxDevice {
         }
         this.fd = fd;
         try {
-            this.name = getDeviceName();
+            // Switch clocks first, since it drops the events queued so far
+            this.monotonic_clock = setMonotonicClock();
             this.input_id = getDeviceInputID();
-            this.components = getDeviceComponents();
-            if (detect_rumblers)
-                this.rumblers = enumerateRumblers();
-            else
-                this.rumblers = new Rumbler[]{};
-            this.type = guessType();
+            String phys = cache != null ? getDevicePhys() : null;
+            LinuxDeviceCache.Entry entry = cache != null ? cache.lookup(filename, input_id, phys, detect_rumblers) : null;
+            if (entry != null) {
+                this.name = entry.getName();
+                this.components = entry.createComponents(this);
+                if (detect_rumblers && entry.hasRumbler())
+                    this.rumblers = createRumbleRumblers();
+                else
+                    this.rumblers = new Rumbler[]{};
+                this.type = entry.getType();
+            } else {
+                this.name = getDeviceName();
+                this.components = getDeviceComponents();
+                if (detect_rumblers)
+                    this.rumblers = enumerateRumblers();
+                else
+                    this.rumblers = new Rumbler[]{};
+                this.type = guessType();
+                if (cache != null)
+                    cache.store(filename, input_id, phys, this, detect_rumblers);
+            }
+            refreshKeyStates();
+            if (entry == null)
+                refreshAbsValues();
         } catch (IOException e) {
             close();
             throw e;
         }
     }
 
+    /**
+     * Creates a device that is not backed by a device node. Components are
+     * registered by the caller. Used to exercise the event mapping headless.
+     */
+    LinuxEventDevice(String name, Type type) {
+        this.fd = -1;
+        this.name = name;
+        this.input_id = new LinuxInputID(0, 0, 0, 0);
+        this.components = new ArrayList<>();
+        this.rumblers = new Rumbler[]{};
+        this.type = type;
+        this.monotonic_clock = true;
+        this.abs_values_seeded = true;
+        // there is no file descriptor to close
+        this.closed = true;
+    }
+
     private static native long nOpen(String filename, boolean rw) throws IOException;
 
+    private static native void nSetMonotonicClock(long fd) throws IOException;
+
+    /* Kernels before 3.4 don't support EVIOCSCLOCKID and keep using the wall clock */
+    private boolean setMonotonicClock() {
+        try {
+            nSetMonotonicClock(fd);
+            return true;
+        } catch (IOException e) {
+            ControllerEnvironment.logln("Failed to select monotonic event clock, converting wall clock event times: " + e.getMessage());
+            return false;
+        }
+    }
+
     private static int countComponents(List components, Class id_type, boolean relative) {
         int count = 0;
         for (Object component1 : components) {
@@ -110,7 +227,7 @@ final class LinuxEventDevice implements LinuxDevice {
 
     private static native int nGetVersion(long fd) throws IOException;
 
-    private static native boolean nGetNextEvent(long fd, LinuxEvent linux_event) throws IOException;
+    private static native int nReadEvents(long fd, ByteBuffer buffer, int max_events) throws IOException;
 
     private static native void nGetAbsInfo(long fd, int abs_axis, LinuxAbsInfo abs_info) throws IOException;
 
@@ -120,6 +237,10 @@ final class LinuxEventDevice implements LinuxDevice {
 
     private static native void nGetKeyStates(long fd, byte[] states) throws IOException;
 
+    private static native void nSetEventMask(long fd, int type, byte[] bits) throws IOException;
+
+    private static native void nGrab(long fd, boolean grab) throws IOException;
+
     @Contract(pure = true)
     private static boolean isBitSet(byte[] bits, int bit) {
         return (bits[bit / 8] & (1 << (bit % 8))) != 0;
@@ -127,6 +248,8 @@ final class LinuxEventDevice implements LinuxDevice {
 
     private static native String nGetName(long fd) throws IOException;
 
+    private static native String nGetPhys(long fd) throws IOException;
+
     private static native void nClose(long fd) throws IOException;
 
     @Contract(pure = true)
@@ -220,6 +343,17 @@ final class LinuxEventDevice implements LinuxDevice {
             return null;
     }
 
+    /* Creates the rumbler of a device already known to support FF_RUMBLE */
+    @NotNull
+    private Rumbler[] createRumbleRumblers() {
+        try {
+            return new Rumbler[]{new LinuxRumbleFF(this)};
+        } catch (IOException e) {
+            ControllerEnvironment.logln("Failed to enumerate rumblers: " + e.getMessage());
+            return new Rumbler[]{};
+        }
+    }
+
     @NotNull
     private Rumbler[] enumerateRumblers() {
         List<LinuxRumbleFF> rumblers = new ArrayList<>();
@@ -262,11 +396,54 @@ final class LinuxEventDevice implements LinuxDevice {
     }
 
     public final void registerComponent(LinuxAxisDescriptor desc, LinuxComponent component) {
-        component_map.put(desc, component);
+        LinuxComponent[] components = getComponentTable(desc.getType());
+        if (components != null && desc.getCode() >= 0 && desc.getCode() < components.length)
+            components[desc.getCode()] = component;
     }
 
     public final LinuxComponent mapDescriptor(LinuxAxisDescriptor desc) {
-        return component_map.get(desc);
+        LinuxComponent[] components = getComponentTable(desc.getType());
+        int code = desc.getCode();
+        if (components == null || code < 0 || code >= components.length)
+            return null;
+        return components[code];
+    }
+
+    /**
+     * Sets the EVIOCSMASK event masks of the device so that the kernel only
+     * reports key, absolute and relative events of the given components, or
+     * of all registered components if components is null.
+     */
+    public final synchronized void setComponentFilter(Set<Component> components) throws IOException {
+        checkClosed();
+        setEventMask(NativeDefinitions.EV_KEY, key_components, components);
+        setEventMask(NativeDefinitions.EV_ABS, abs_components, components);
+        setEventMask(NativeDefinitions.EV_REL, rel_components, components);
+    }
+
+    private void setEventMask(int type, LinuxComponent[] table, Set<Component> components) throws IOException {
+        byte[] bits = new byte[table.length / 8 + 1];
+        for (int code = 0; code < table.length; code++) {
+            LinuxComponent component = table[code];
+            if (component != null && (components == null || components.contains(component)))
+                bits[code / 8] |= 1 << (code % 8);
+        }
+        nSetEventMask(fd, type, bits);
+    }
+
+    @Contract(pure = true)
+    @Nullable
+    private LinuxComponent[] getComponentTable(int type) {
+        switch (type) {
+            case NativeDefinitions.EV_KEY:
+                return key_components;
+            case NativeDefinitions.EV_ABS:
+                return abs_components;
+            case NativeDefinitions.EV_REL:
+                return rel_components;
+            default:
+                return null;
+        }
     }
 
     @Contract(pure = true)
@@ -291,9 +468,208 @@ final class LinuxEventDevice implements LinuxDevice {
         return nGetVersion(fd);
     }
 
+    /**
+     * Returns the next event from the device.
+     * <p>
+     * A SYN_DROPPED event, sent by the kernel when its event buffer
+     * overflowed, is passed on so that callers can discard a partial frame.
+     * The events up to and including the next SYN_REPORT are then skipped.
+     * They are replaced by one synthesized frame holding the current state
+     * of every key and absolute axis of the device, read in bulk.
+     */
     public final synchronized boolean getNextEvent(LinuxEvent linux_event) throws IOException {
+        if (!getNextStreamEvent(linux_event))
+            return false;
+        updateState(linux_event.getDescriptor().getType(), linux_event.getDescriptor().getCode(), linux_event.getValue());
+        return true;
+    }
+
+    /* Returns the next event like getNextEvent, without applying it to the key and axis states */
+    private boolean getNextStreamEvent(LinuxEvent linux_event) throws IOException {
+        while (true) {
+            if (next_resync_event < num_resync_events) {
+                int i = next_resync_event++;
+                linux_event.set(resync_nanos, resync_types[i], resync_codes[i], resync_values[i]);
+                return true;
+            }
+            if (!readEvent(linux_event))
+                return false;
+            int type = linux_event.getDescriptor().getType();
+            int code = linux_event.getDescriptor().getCode();
+            if (type == NativeDefinitions.EV_SYN && code == NativeDefinitions.SYN_DROPPED) {
+                overrun_count++;
+                dropping_events = true;
+                return true;
+            }
+            if (dropping_events) {
+                if (type == NativeDefinitions.EV_SYN && code == NativeDefinitions.SYN_REPORT) {
+                    dropping_events = false;
+                    resync(linux_event.getNanos());
+                }
+                continue;
+            }
+            return true;
+        }
+    }
+
+    private void updateState(int type, int code, int value) {
+        if (type == NativeDefinitions.EV_ABS && code < abs_values.length)
+            abs_values[code] = value;
+        else if (type == NativeDefinitions.EV_KEY && code <= NativeDefinitions.KEY_MAX)
+            setKeyState(code, value != 0);
+    }
+
+    /* Queues events for the current key and absolute axis states, ended by a SYN_REPORT */
+    private void resync(long nanos) throws IOException {
+        refreshKeyStates();
+        refreshAbsValues();
+        int num_events = components.size() + 1;
+        if (resync_types.length < num_events) {
+            resync_types = new int[num_events];
+            resync_codes = new int[num_events];
+            resync_values = new int[num_events];
+        }
+        num_resync_events = 0;
+        next_resync_event = 0;
+        resync_nanos = nanos;
+        for (Object component1 : components) {
+            LinuxEventComponent component = (LinuxEventComponent) component1;
+            int type = component.getDescriptor().getType();
+            int code = component.getDescriptor().getCode();
+            if (type == NativeDefinitions.EV_KEY)
+                addResyncEvent(type, code, isKeySet(code) ? 1 : 0);
+            else if (type == NativeDefinitions.EV_ABS)
+                addResyncEvent(type, code, abs_values[code]);
+        }
+        addResyncEvent(NativeDefinitions.EV_SYN, NativeDefinitions.SYN_REPORT, 0);
+    }
+
+    private void addResyncEvent(int type, int code, int value) {
+        resync_types[num_resync_events] = type;
+        resync_codes[num_resync_events] = code;
+        resync_values[num_resync_events] = value;
+        num_resync_events++;
+    }
+
+    /**
+     * Returns the number of times the kernel reported lost events with
+     * SYN_DROPPED because the device was not read often enough.
+     */
+    public final long getOverrunCount() {
+        return overrun_count;
+    }
+
+    /* Events are read in batches of up to EVENT_BATCH_SIZE per system call
+     * and decoded from the event buffer one at a time
+     */
+    private boolean readEvent(LinuxEvent linux_event) throws IOException {
+        checkClosed();
+        if (next_buffered_event == num_buffered_events) {
+            // Forget the old batch first, so a failing read doesn't leave it to be decoded again
+            next_buffered_event = 0;
+            num_buffered_events = 0;
+            num_buffered_events = nReadEvents(fd, event_buffer, EVENT_BATCH_SIZE);
+            if (num_buffered_events == 0)
+                return false;
+        }
+        int offset = next_buffered_event++ * EVENT_RECORD_SIZE;
+        long nanos = (event_buffer.getLong(offset) * 1000000 + event_buffer.getLong(offset + 8)) * 1000;
+        if (!monotonic_clock)
+            nanos = EventClock.fromCurrentTimeNanos(nanos);
+        linux_event.set(nanos,
+                event_buffer.getShort(offset + 16) & 0xffff,
+                event_buffer.getShort(offset + 18) & 0xffff,
+                event_buffer.getInt(offset + 20));
+        return true;
+    }
+
+    /**
+     * Turns frame mode on or off. In frame mode getNextFrameEvent only hands
+     * out events once the SYN_REPORT ending their frame has been read. Any
+     * partially read frame is discarded when the mode changes.
+     */
+    public final synchronized void setFrameMode(boolean frame_mode) {
+        this.frame_mode = frame_mode;
+        frame_size = 0;
+        complete_frame_size = 0;
+        next_frame_event = 0;
+    }
+
+    public final synchronized boolean isFrameMode() {
+        return frame_mode;
+    }
+
+    /**
+     * Grabs or releases the device with EVIOCGRAB. While grabbed, this device
+     * is the only reader of its events: other evdev clients such as the X
+     * server and the joystick driver no longer receive them. The grab is
+     * released when the device is closed.
+     */
+    public final synchronized void setExclusive(boolean exclusive) throws IOException {
         checkClosed();
-        return nGetNextEvent(fd, linux_event);
+        if (this.exclusive == exclusive)
+            return;
+        nGrab(fd, exclusive);
+        this.exclusive = exclusive;
+    }
+
+    public final synchronized boolean isExclusive() {
+        return exclusive;
+    }
+
+    /**
+     * Returns the next event of a complete frame, stamped with the time of
+     * the SYN_REPORT that completed it. Events of a frame that is not yet
+     * complete are kept until a later call.
+     */
+    public final synchronized boolean getNextFrameEvent(LinuxEvent linux_event) throws IOException {
+        if (next_frame_event == complete_frame_size) {
+            // the frame being handed out is done, but keep a partially read one
+            if (complete_frame_size > 0) {
+                frame_size = 0;
+                complete_frame_size = 0;
+                next_frame_event = 0;
+            }
+            if (!readFrame())
+                return false;
+        }
+        int i = next_frame_event++;
+        linux_event.set(frame_nanos, frame_types[i], frame_codes[i], frame_values[i]);
+        return true;
+    }
+
+    /* Reads events until a frame is complete, or returns false if the device runs dry first.
+     * The key and axis states only change once the whole frame is read, so they never show half of it
+     */
+    private boolean readFrame() throws IOException {
+        LinuxEvent linux_event = frame_scratch_event;
+        while (getNextStreamEvent(linux_event)) {
+            int type = linux_event.getDescriptor().getType();
+            int code = linux_event.getDescriptor().getCode();
+            if (type == NativeDefinitions.EV_SYN) {
+                // events were lost, so the partial frame is stale
+                if (code == NativeDefinitions.SYN_DROPPED)
+                    frame_size = 0;
+                if (code == NativeDefinitions.SYN_REPORT && frame_size > 0) {
+                    for (int i = 0; i < frame_size; i++)
+                        updateState(frame_types[i], frame_codes[i], frame_values[i]);
+                    complete_frame_size = frame_size;
+                    frame_nanos = linux_event.getNanos();
+                    return true;
+                }
+                continue;
+            }
+            if (frame_size == frame_types.length) {
+                frame_types = Arrays.copyOf(frame_types, frame_size * 2);
+                frame_codes = Arrays.copyOf(frame_codes, frame_size * 2);
+                frame_values = Arrays.copyOf(frame_values, frame_size * 2);
+            }
+            frame_types[frame_size] = type;
+            frame_codes[frame_size] = code;
+            frame_values[frame_size] = linux_event.getValue();
+            frame_size++;
+        }
+        return false;
     }
 
     public final synchronized void getAbsInfo(int abs_axis, LinuxAbsInfo abs_info) throws IOException {
@@ -301,6 +677,54 @@ final class LinuxEventDevice implements LinuxDevice {
         nGetAbsInfo(fd, abs_axis, abs_info);
     }
 
+    /**
+     * Returns the last known value of an absolute axis. Values are tracked
+     * from the events read from the device, so this is a memory read.
+     */
+    public final int getAbsValue(int abs_axis) {
+        if (!abs_values_seeded)
+            seedAbsValues();
+        return abs_values[abs_axis];
+    }
+
+    private synchronized void seedAbsValues() {
+        if (abs_values_seeded)
+            return;
+        try {
+            refreshAbsValues();
+        } catch (IOException e) {
+            ControllerEnvironment.logln("Failed to read axis values: " + e.getMessage());
+            // don't retry on every read
+            abs_values_seeded = true;
+        }
+    }
+
+    /**
+     * Reads the values of all absolute axes of the device in one pass.
+     * Done when the device is opened, or first needed if its capabilities
+     * came from the cache, and after events were dropped.
+     */
+    public final synchronized void refreshAbsValues() throws IOException {
+        for (Object component1 : components) {
+            LinuxEventComponent component = (LinuxEventComponent) component1;
+            if (component.getDescriptor().getType() == NativeDefinitions.EV_ABS) {
+                int code = component.getDescriptor().getCode();
+                getAbsInfo(code, scratch_abs_info);
+                abs_values[code] = scratch_abs_info.getValue();
+            }
+        }
+        abs_values_seeded = true;
+    }
+
+    /**
+     * Returns the event used by {@link LinuxControllers#getNextDeviceEvent}.
+     * Callers must hold the device monitor while using it.
+     */
+    @Contract(pure = true)
+    final LinuxEvent getScratchEvent() {
+        return scratch_event;
+    }
+
     private void addKeys(List<LinuxEventComponent> components) throws IOException {
         byte[] bits = getKeysBits();
         for (int i = 0; i < bits.length * 8; i++) {
@@ -386,13 +810,58 @@ final class LinuxEventDevice implements LinuxDevice {
         return bits;
     }
 
-    public final synchronized void pollKeyStates() throws IOException {
-        nGetKeyStates(fd, key_states);
+    /**
+     * Reads the state of all keys with EVIOCGKEY. Done when the device is
+     * opened and after events were dropped, the states are kept up to date
+     * from EV_KEY events in between.
+     */
+    public final synchronized void refreshKeyStates() throws IOException {
+        byte[] bits = new byte[NativeDefinitions.KEY_MAX / 8 + 1];
+        nGetKeyStates(fd, bits);
+        Arrays.fill(key_states, 0);
+        for (int i = 0; i < bits.length; i++)
+            key_states[i / 8] |= (bits[i] & 0xffL) << (8 * (i % 8));
+    }
+
+    /* A value of 2 is an autorepeat, which still means pressed */
+    private void setKeyState(int code, boolean pressed) {
+        if (pressed)
+            key_states[code >> 6] |= 1L << code;
+        else
+            key_states[code >> 6] &= ~(1L << code);
     }
 
     @Contract(pure = true)
     public final boolean isKeySet(int bit) {
-        return isBitSet(key_states, bit);
+        return (key_states[bit >> 6] & (1L << bit)) != 0;
+    }
+
+    @Contract(pure = true)
+    public final boolean isAnyKeySet() {
+        for (long bits : key_states) {
+            if (bits != 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the first pressed key code at or after from_code, or -1 if
+     * there is none. Iterates pressed keys like BitSet.nextSetBit.
+     */
+    @Contract(pure = true)
+    public final int getNextSetKey(int from_code) {
+        int word_index = from_code >> 6;
+        if (from_code < 0 || word_index >= key_states.length)
+            return -1;
+        long word = key_states[word_index] & (-1L << from_code);
+        while (true) {
+            if (word != 0)
+                return word_index * 64 + Long.numberOfTrailingZeros(word);
+            if (++word_index == key_states.length)
+                return -1;
+            word = key_states[word_index];
+        }
     }
 
     @Contract(pure = true)
@@ -404,19 +873,33 @@ final class LinuxEventDevice implements LinuxDevice {
         return nGetName(fd);
     }
 
+    private String getDevicePhys() throws IOException {
+        return nGetPhys(fd);
+    }
+
     @Override
     public synchronized final void close() throws IOException {
         if (closed) return;
         closed = true;
-        LinuxEnvironmentPlugin.execute(new LinuxDeviceTask<Object>() {
-            @Override
-            protected final Object execute() throws IOException {
-                nClose(fd);
-                return null;
+        boolean release_grab = exclusive;
+        exclusive = false;
+        LinuxEnvironmentPlugin.execute(() -> {
+            if (release_grab) {
+                try {
+                    nGrab(fd, false);
+                } catch (IOException e) {
+                    ControllerEnvironment.logln("Failed to release device grab: " + e.getMessage());
+                }
             }
+            nClose(fd);
+            return null;
         });
     }
 
+    public final long getFD() {
+        return fd;
+    }
+
     private void checkClosed() throws IOException {
         if (closed)
             throw new IOException("Device is closed");
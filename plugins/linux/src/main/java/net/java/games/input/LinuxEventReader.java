@@ -0,0 +1,199 @@
+/**
+ * Copyright (C) 2003 Jeremy Booth (jeremy@newdawnsoftware.com)
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer. Redistributions in binary
+ * form must reproduce the above copyright notice, this list of conditions and
+ * the following disclaimer in the documentation and/or other materials provided
+ * with the distribution.
+ * The name of the author may not be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE
+ */
+package net.java.games.input;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads device events as they arrive instead of on every poll. A single
+ * thread waits in epoll_wait on the file descriptors of all registered
+ * controllers and polls a controller as soon as its device becomes
+ * readable, so its events end up in the controller's event queue and
+ * with its subscribers. Idle devices cost nothing.
+ * <p>
+ * Controllers registered here should not also be polled by the
+ * application, since that would consume the relative axis values and
+ * events the reader is accumulating.
+ */
+final class LinuxEventReader implements Runnable {
+    private static final int WAKEUP_TOKEN = -1;
+    private static final int MAX_READY_EVENTS = 64;
+
+    private final long epoll_fd;
+    private final long wakeup_fd;
+    private final Thread thread;
+    /* Registered controllers and their devices, indexed by epoll token.
+     * Replaced as a whole while holding the reader monitor
+     */
+    private volatile Controller[] controllers = new Controller[0];
+    private LinuxDevice[] devices = new LinuxDevice[0];
+    /* The descriptors the devices were added with, so they can be removed
+     * without asking a device that may be on its way to being closed
+     */
+    private long[] fds = new long[0];
+    private volatile boolean stopped;
+    /* Set once the reader thread has closed epoll_fd, guarded by the reader monitor */
+    private boolean epoll_closed;
+
+    public LinuxEventReader() throws IOException {
+        this.epoll_fd = nCreate();
+        try {
+            this.wakeup_fd = nCreateWakeup();
+        } catch (IOException e) {
+            nClose(epoll_fd);
+            throw e;
+        }
+        nAdd(epoll_fd, wakeup_fd, WAKEUP_TOKEN);
+        this.thread = new Thread(this, "jinput event reader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static native long nCreate() throws IOException;
+
+    private static native long nCreateWakeup() throws IOException;
+
+    private static native void nAdd(long epoll_fd, long fd, int token) throws IOException;
+
+    private static native void nRemove(long epoll_fd, long fd) throws IOException;
+
+    private static native int nWait(long epoll_fd, int[] tokens) throws IOException;
+
+    private static native void nWakeup(long wakeup_fd) throws IOException;
+
+    private static native void nClearWakeup(long wakeup_fd) throws IOException;
+
+    private static native void nClose(long fd) throws IOException;
+
+    /**
+     * Starts reading events for the controller whenever the device
+     * becomes readable.
+     */
+    public final synchronized void register(Controller controller, LinuxDevice device) throws IOException {
+        if (epoll_closed)
+            throw new IOException("Event reader has stopped");
+        int token = Arrays.asList(controllers).indexOf(null);
+        if (token == -1)
+            token = controllers.length;
+        Controller[] new_controllers = Arrays.copyOf(controllers, Math.max(controllers.length, token + 1));
+        LinuxDevice[] new_devices = Arrays.copyOf(devices, new_controllers.length);
+        long[] new_fds = Arrays.copyOf(fds, new_controllers.length);
+        new_controllers[token] = controller;
+        new_devices[token] = device;
+        new_fds[token] = device.getFD();
+        nAdd(epoll_fd, new_fds[token], token);
+        devices = new_devices;
+        fds = new_fds;
+        controllers = new_controllers;
+    }
+
+    /**
+     * Stops reading events for the controller. Must be called before the
+     * device of the controller is closed, since the descriptor number may
+     * be handed out again as soon as the device is closed.
+     */
+    public final synchronized void unregister(Controller controller) {
+        for (int token = 0; token < controllers.length; token++) {
+            if (controllers[token] == controller) {
+                if (!epoll_closed) {
+                    try {
+                        nRemove(epoll_fd, fds[token]);
+                    } catch (IOException e) {
+                        LinuxEnvironmentPlugin.logln("Failed to stop reading events from " + controller.getName() + ": " + e.getMessage());
+                    }
+                }
+                Controller[] new_controllers = controllers.clone();
+                new_controllers[token] = null;
+                devices[token] = null;
+                fds[token] = 0;
+                controllers = new_controllers;
+                return;
+            }
+        }
+    }
+
+    public final void run() {
+        int[] tokens = new int[MAX_READY_EVENTS];
+        try {
+            while (!stopped) {
+                int num_ready = nWait(epoll_fd, tokens);
+                Controller[] controllers = this.controllers;
+                for (int i = 0; i < num_ready; i++) {
+                    int token = tokens[i];
+                    if (token == WAKEUP_TOKEN) {
+                        nClearWakeup(wakeup_fd);
+                        continue;
+                    }
+                    Controller controller = token < controllers.length ? controllers[token] : null;
+                    if (controller != null)
+                        pollController(controller);
+                }
+            }
+        } catch (IOException e) {
+            LinuxEnvironmentPlugin.logln("Event reader failed: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                epoll_closed = true;
+                try {
+                    nClose(wakeup_fd);
+                    nClose(epoll_fd);
+                } catch (IOException e) {
+                    LinuxEnvironmentPlugin.logln("Failed to close event reader: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void pollController(Controller controller) {
+        try {
+            // A controller that fails to poll has most likely been unplugged
+            if (!controller.poll())
+                unregister(controller);
+        } catch (RuntimeException e) {
+            LinuxEnvironmentPlugin.logln("Failed to poll " + controller.getName() + ": " + e);
+            // Its device stays readable, so keeping it would only spin on the same failure
+            unregister(controller);
+        }
+    }
+
+    /**
+     * Stops the reader thread and waits for it to exit.
+     */
+    public final void stop() {
+        if (stopped)
+            return;
+        stopped = true;
+        try {
+            nWakeup(wakeup_fd);
+            thread.join();
+        } catch (IOException e) {
+            LinuxEnvironmentPlugin.logln("Failed to stop event reader: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -35,12 +35,10 @@ import java.io.IOException;
 abstract class LinuxForceFeedbackEffect implements Rumbler {
     private final LinuxEventDevice device;
     private final int ff_id;
-    private final WriteTask write_task = new WriteTask();
-    private final UploadTask upload_task = new UploadTask();
 
     LinuxForceFeedbackEffect(LinuxEventDevice device) throws IOException {
         this.device = device;
-        this.ff_id = upload_task.doUpload(-1, 0);
+        this.ff_id = LinuxEnvironmentPlugin.execute(() -> upload(-1, 0));
     }
 
     protected abstract int upload(int id, float intensity) throws IOException;
@@ -49,17 +47,39 @@ abstract class LinuxForceFeedbackEffect implements Rumbler {
         return device;
     }
 
+    /* Only the latest intensity matters, so at most one rumble task is queued at a time */
+    private float pending_intensity;
+    private boolean rumble_pending;
+
+    /* Rumbling doesn't wait for the device, failures are logged when they happen */
     public synchronized final void rumble(float intensity) {
-        try {
-            if (intensity > 0) {
-                upload_task.doUpload(ff_id, intensity);
-                write_task.write(1);
-            } else {
-                write_task.write(0);
-            }
-        } catch (IOException e) {
-            ControllerEnvironment.logln("Failed to rumble: " + e);
+        pending_intensity = intensity;
+        if (rumble_pending)
+            return;
+        rumble_pending = true;
+        LinuxEnvironmentPlugin.submit(this::applyPendingRumble).whenComplete((ignored, e) -> {
+            if (e != null)
+                ControllerEnvironment.logln("Failed to rumble: " + e);
+        });
+    }
+
+    private Object applyPendingRumble() throws IOException {
+        float intensity;
+        synchronized (this) {
+            intensity = pending_intensity;
+            rumble_pending = false;
         }
+        if (intensity > 0) {
+            upload(ff_id, intensity);
+            return write(1);
+        } else {
+            return write(0);
+        }
+    }
+
+    private Object write(int value) throws IOException {
+        device.writeEvent(NativeDefinitions.EV_FF, ff_id, value);
+        return null;
     }
 
     /*
@@ -77,37 +97,4 @@ abstract class LinuxForceFeedbackEffect implements Rumbler {
     public final Identifier getAxisIdentifier() {
         return null;
     }
-
-    private final class UploadTask extends LinuxDeviceTask<Object> {
-        private int id;
-        private float intensity;
-
-        public final int doUpload(int id, float intensity) throws IOException {
-            this.id = id;
-            this.intensity = intensity;
-            LinuxEnvironmentPlugin.execute(this);
-            return this.id;
-        }
-
-        @Override
-        protected final Object execute() throws IOException {
-            this.id = upload(id, intensity);
-            return null;
-        }
-    }
-
-    private final class WriteTask extends LinuxDeviceTask<Object> {
-        private int value;
-
-        public final void write(int value) throws IOException {
-            this.value = value;
-            LinuxEnvironmentPlugin.execute(this);
-        }
-
-        @Override
-        protected final Object execute() throws IOException {
-            device.writeEvent(NativeDefinitions.EV_FF, ff_id, value);
-            return null;
-        }
-    }
 }
@@ -44,6 +44,22 @@ final class LinuxInputID {
     }
 
 
+    final int getBusType() {
+        return bustype;
+    }
+
+    final int getVendor() {
+        return vendor;
+    }
+
+    final int getProduct() {
+        return product;
+    }
+
+    final int getVersion() {
+        return version;
+    }
+
     public final Controller.PortType getPortType() {
         return LinuxNativeTypesMap.getPortType(bustype);
     }
@@ -26,8 +26,8 @@
 package net.java.games.input;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * @author elias
@@ -39,6 +39,11 @@ final class LinuxJoystickDevice implements LinuxDevice {
 
     private final static int AXIS_MAX_VALUE = 32767;
 
+    /* Maximum number of events read with a single system call */
+    private final static int EVENT_BATCH_SIZE = 64;
+    /* Size of a struct js_event: time (4 bytes), value (2 bytes), type (1 byte) and number (1 byte) */
+    private final static int EVENT_RECORD_SIZE = 8;
+
     private final long fd;
     private final String name;
 
@@ -46,8 +51,11 @@ final class LinuxJoystickDevice implements LinuxDevice {
     private final Event event = new Event();
     private final LinuxJoystickButton[] buttons;
     private final LinuxJoystickAxis[] axes;
-    private final Map<Integer, LinuxJoystickPOV> povXs = new HashMap<>();
-    private final Map<Integer, LinuxJoystickPOV> povYs = new HashMap<>();
+    /* The POV each axis belongs to, indexed by axis number, or null for plain axes */
+    private final LinuxJoystickPOV[] axis_povs;
+    /* Maps the millisecond event times of the joystick driver to System.nanoTime() */
+    private final EventClock event_clock = new EventClock();
+    private final ByteBuffer event_buffer = ByteBuffer.allocateDirect(EVENT_BATCH_SIZE * EVENT_RECORD_SIZE).order(ByteOrder.nativeOrder());
     private final byte[] axisMap;
     private final char[] buttonMap;
 
@@ -66,6 +74,7 @@ final class LinuxJoystickDevice implements LinuxDevice {
             setBufferSize(AbstractController.EVENT_QUEUE_DEPTH);
             buttons = new LinuxJoystickButton[getNumDeviceButtons()];
             axes = new LinuxJoystickAxis[getNumDeviceAxes()];
+            axis_povs = new LinuxJoystickPOV[axes.length];
             axisMap = getDeviceAxisMap();
             buttonMap = getDeviceButtonMap();
         } catch (IOException e) {
@@ -76,7 +85,7 @@ final class LinuxJoystickDevice implements LinuxDevice {
 
     private static native long nOpen(String filename) throws IOException;
 
-    private static native boolean nGetNextEvent(long fd, LinuxJoystickEvent joystick_event) throws IOException;
+    private static native int nReadEvents(long fd, ByteBuffer buffer, int max_events) throws IOException;
 
     private static native int nGetNumButtons(long fd) throws IOException;
 
@@ -118,12 +127,8 @@ final class LinuxJoystickDevice implements LinuxDevice {
                     if (axis != null) {
                         float value = (float) joystick_event.getValue() / AXIS_MAX_VALUE;
                         axis.setValue(value);
-                        if (povXs.containsKey(index)) {
-                            LinuxJoystickPOV pov = povXs.get(index);
-                            pov.updateValue();
-                            event.set(pov, pov.getPollData(), joystick_event.getNanos());
-                        } else if (povYs.containsKey(index)) {
-                            LinuxJoystickPOV pov = povYs.get(index);
+                        LinuxJoystickPOV pov = axis_povs[index];
+                        if (pov != null) {
                             pov.updateValue();
                             event.set(pov, pov.getPollData(), joystick_event.getNanos());
                         } else {
@@ -137,9 +142,7 @@ final class LinuxJoystickDevice implements LinuxDevice {
                 // Unknown component type
                 return;
         }
-        if (!event_queue.isFull()) {
-            event_queue.add(event);
-        }
+        event_queue.offer(event);
     }
 
     public final void registerAxis(int index, LinuxJoystickAxis axis) {
@@ -166,8 +169,10 @@ final class LinuxJoystickDevice implements LinuxDevice {
                 break;
             }
         }
-        povXs.put(xIndex, pov);
-        povYs.put(yIndex, pov);
+        if (xIndex < axes.length)
+            axis_povs[xIndex] = pov;
+        if (yIndex < axes.length)
+            axis_povs[yIndex] = pov;
     }
 
     public final synchronized boolean getNextEvent(Event event) throws IOException {
@@ -176,13 +181,27 @@ final class LinuxJoystickDevice implements LinuxDevice {
 
     public final synchronized void poll() throws IOException {
         checkClosed();
-        while (getNextDeviceEvent(joystick_event)) {
-            processEvent(joystick_event);
-        }
+        int num_events;
+        do {
+            num_events = readDeviceEvents();
+            if (num_events == 0)
+                break;
+            event_clock.update(event_buffer.getInt((num_events - 1) * EVENT_RECORD_SIZE), System.nanoTime());
+            for (int i = 0; i < num_events; i++) {
+                int offset = i * EVENT_RECORD_SIZE;
+                joystick_event.set(event_clock.toNanos(event_buffer.getInt(offset)),
+                        event_buffer.getShort(offset + 4),
+                        event_buffer.get(offset + 6) & 0xff,
+                        event_buffer.get(offset + 7) & 0xff);
+                processEvent(joystick_event);
+            }
+            // A short read means the kernel queue is drained
+        } while (num_events == EVENT_BATCH_SIZE);
     }
 
-    private boolean getNextDeviceEvent(LinuxJoystickEvent joystick_event) throws IOException {
-        return nGetNextEvent(fd, joystick_event);
+    /* Reads up to EVENT_BATCH_SIZE events into event_buffer and returns the number read */
+    private int readDeviceEvents() throws IOException {
+        return nReadEvents(fd, event_buffer, EVENT_BATCH_SIZE);
     }
 
     public final int getNumAxes() {
@@ -236,6 +255,10 @@ final class LinuxJoystickDevice implements LinuxDevice {
         }
     }
 
+    public final long getFD() {
+        return fd;
+    }
+
     private void checkClosed() throws IOException {
         if (closed)
             throw new IOException("Device is closed");
@@ -35,8 +35,8 @@ final class LinuxJoystickEvent {
     private int type;
     private int number;
 
-    public final void set(long millis, int value, int type, int number) {
-        this.nanos = millis * 1000000;
+    public final void set(long nanos, int value, int type, int number) {
+        this.nanos = nanos;
         this.value = value;
         this.type = type;
         this.number = number;
@@ -38,6 +38,7 @@
 package net.java.games.input;
 
 import java.io.IOException;
+import java.util.Set;
 
 /** Represents an OSX Keyboard
  * @author elias
@@ -54,6 +55,10 @@ final class LinuxKeyboard extends Keyboard {
         this.port = device.getPortType();
     }
 
+    final LinuxEventDevice getDevice() {
+        return device;
+    }
+
     public final PortType getPortType() {
         return port;
     }
@@ -62,7 +67,7 @@ final class LinuxKeyboard extends Keyboard {
         return LinuxControllers.getNextDeviceEvent(event, device);
     }
 
-    public final void pollDevice() throws IOException {
-        device.pollKeyStates();
+    protected final void setDeviceComponentFilter(Set<Component> components) throws IOException {
+        device.setComponentFilter(components);
     }
 }
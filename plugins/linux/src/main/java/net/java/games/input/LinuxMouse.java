@@ -38,6 +38,7 @@
 package net.java.games.input;
 
 import java.io.IOException;
+import java.util.Set;
 
 /** Represents an OSX Mouse
  * @author elias
@@ -55,15 +56,19 @@ final class LinuxMouse extends Mouse {
     }
 
 
-    public final PortType getPortType() {
-        return port;
+    final LinuxEventDevice getDevice() {
+        return device;
     }
 
-    public final void pollDevice() throws IOException {
-        device.pollKeyStates();
+    public final PortType getPortType() {
+        return port;
     }
 
     protected final boolean getNextDeviceEvent(Event event) throws IOException {
         return LinuxControllers.getNextDeviceEvent(event, device);
     }
+
+    protected final void setDeviceComponentFilter(Set<Component> components) throws IOException {
+        device.setComponentFilter(components);
+    }
 }
@@ -6,7 +6,7 @@ package net.java.games.input;
  */
 class NativeDefinitions {
     // --Commented out by Inspection (11/29/2015 12:48 AM):public static final int EV_VERSION = 0x010001;
-    // --Commented out by Inspection (11/29/2015 12:48 AM):public static final int EV_SYN = 0x00;
+    public static final int EV_SYN = 0x00;
     public static final int EV_KEY = 0x01;
     public static final int EV_REL = 0x02;
     public static final int EV_ABS = 0x03;
@@ -20,6 +20,8 @@ class NativeDefinitions {
     // --Commented out by Inspection (11/29/2015 12:48 AM):public static final int EV_FF_STATUS = 0x17;
     public static final int EV_MAX = 0x1f;
     // --Commented out by Inspection (11/29/2015 12:48 AM):public static final int EV_CNT = (EV_MAX+1);
+    public static final int SYN_REPORT = 0;
+    public static final int SYN_DROPPED = 3;
     // --Commented out by Inspection (11/29/2015 12:48 AM):public static final int KEY_RESERVED = 0;
     public static final int KEY_ESC = 1;
     public static final int KEY_1 = 2;
@@ -0,0 +1,118 @@
+/*
+ * %W% %E%
+ *
+ * Copyright 2002 Sun Microsystems, Inc. All rights reserved.
+ * SUN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+/*****************************************************************************
+* Copyright (c) 2003 Sun Microsystems, Inc.  All Rights Reserved.
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* - Redistribution of source code must retain the above copyright notice,
+*   this list of conditions and the following disclaimer.
+*
+* - Redistribution in binary form must reproduce the above copyright notice,
+*   this list of conditions and the following disclaimer in the documentation
+*   and/or other materails provided with the distribution.
+*
+* Neither the name Sun Microsystems, Inc. or the names of the contributors
+* may be used to endorse or promote products derived from this software
+* without specific prior written permission.
+*
+* This software is provided "AS IS," without a warranty of any kind.
+* ALL EXPRESS OR IMPLIED CONDITIONS, REPRESENTATIONS AND WARRANTIES, INCLUDING
+* ANY IMPLIED WARRANT OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE OR
+* NON-INFRINGEMEN, ARE HEREBY EXCLUDED.  SUN MICROSYSTEMS, INC. ("SUN") AND
+* ITS LICENSORS SHALL NOT BE LIABLE FOR ANY DAMAGES SUFFERED BY LICENSEE AS
+* A RESULT OF USING, MODIFYING OR DESTRIBUTING THIS SOFTWARE OR ITS 
+* DERIVATIVES.  IN NO EVENT WILL SUN OR ITS LICENSORS BE LIABLE FOR ANY LOST
+* REVENUE, PROFIT OR DATA, OR FOR DIRECT, INDIRECT, SPECIAL, CONSEQUENTIAL,
+* INCIDENTAL OR PUNITIVE DAMAGES.  HOWEVER CAUSED AND REGARDLESS OF THE THEORY
+* OF LIABILITY, ARISING OUT OF THE USE OF OUR INABILITY TO USE THIS SOFTWARE,
+* EVEN IF SUN HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGES.
+*
+* You acknowledge that this software is not designed or intended for us in
+* the design, construction, operation or maintenance of any nuclear facility
+*
+*****************************************************************************/
+
+#include <sys/types.h>
+#include <sys/inotify.h>
+#include <sys/eventfd.h>
+#include <poll.h>
+#include <stdint.h>
+#include <unistd.h>
+#include <errno.h>
+#include "util.h"
+#include "net_java_games_input_LinuxDeviceWatcher.h"
+
+JNIEXPORT jlong JNICALL Java_net_java_games_input_LinuxDeviceWatcher_nCreate(JNIEnv *env, jclass unused, jstring path) {
+	const char *path_str = (*env)->GetStringUTFChars(env, path, NULL);
+	if (path_str == NULL)
+		return -1;
+	int inotify_fd = inotify_init1(IN_CLOEXEC | IN_NONBLOCK);
+	if (inotify_fd == -1) {
+		throwIOException(env, "Failed to create inotify instance (%d)\n", errno);
+	} else if (inotify_add_watch(inotify_fd, path_str, IN_CREATE | IN_ATTRIB | IN_MOVED_TO | IN_DELETE | IN_MOVED_FROM) == -1) {
+		throwIOException(env, "Failed to watch %s (%d)\n", path_str, errno);
+		close(inotify_fd);
+		inotify_fd = -1;
+	}
+	(*env)->ReleaseStringUTFChars(env, path, path_str);
+	return inotify_fd;
+}
+
+JNIEXPORT jlong JNICALL Java_net_java_games_input_LinuxDeviceWatcher_nCreateWakeup(JNIEnv *env, jclass unused) {
+	int wakeup_fd = eventfd(0, EFD_CLOEXEC | EFD_NONBLOCK);
+	if (wakeup_fd == -1)
+		throwIOException(env, "Failed to create wakeup event (%d)\n", errno);
+	return wakeup_fd;
+}
+
+JNIEXPORT jint JNICALL Java_net_java_games_input_LinuxDeviceWatcher_nRead(JNIEnv *env, jclass unused, jlong inotify_fd_address, jlong wakeup_fd_address, jobject buffer) {
+	int inotify_fd = (int)inotify_fd_address;
+	int wakeup_fd = (int)wakeup_fd_address;
+	char *address = (*env)->GetDirectBufferAddress(env, buffer);
+	if (address == NULL) {
+		throwIOException(env, "Event buffer is not a direct buffer\n");
+		return 0;
+	}
+	jlong capacity = (*env)->GetDirectBufferCapacity(env, buffer);
+	struct pollfd fds[2];
+	fds[0].fd = inotify_fd;
+	fds[0].events = POLLIN;
+	fds[1].fd = wakeup_fd;
+	fds[1].events = POLLIN;
+	if (poll(fds, 2, -1) == -1) {
+		if (errno == EINTR)
+			return 0;
+		throwIOException(env, "Failed to wait for device changes (%d)\n", errno);
+		return 0;
+	}
+	if (fds[1].revents & POLLIN)
+		return -1;
+	if (!(fds[0].revents & POLLIN))
+		return 0;
+	ssize_t num_bytes = read(inotify_fd, address, capacity);
+	if (num_bytes == -1) {
+		if (errno == EAGAIN || errno == EINTR)
+			return 0;
+		throwIOException(env, "Failed to read device changes (%d)\n", errno);
+		return 0;
+	}
+	return num_bytes;
+}
+
+JNIEXPORT void JNICALL Java_net_java_games_input_LinuxDeviceWatcher_nWakeup(JNIEnv *env, jclass unused, jlong wakeup_fd_address) {
+	int wakeup_fd = (int)wakeup_fd_address;
+	uint64_t count = 1;
+	if (write(wakeup_fd, &count, sizeof(count)) == -1 && errno != EAGAIN)
+		throwIOException(env, "Failed to signal wakeup event (%d)\n", errno);
+}
+
+JNIEXPORT void JNICALL Java_net_java_games_input_LinuxDeviceWatcher_nClose(JNIEnv *env, jclass unused, jlong fd_address) {
+	int fd = (int)fd_address;
+	if (close(fd) == -1)
+		throwIOException(env, "Failed to close file descriptor (%d)\n", errno);
+}
@@ -44,6 +44,8 @@
 #include <unistd.h>
 #include <fcntl.h>
 #include <errno.h>
+#include <string.h>
+#include <time.h>
 #include "util.h"
 #include "net_java_games_input_LinuxEventDevice.h"
 
@@ -60,6 +62,17 @@ JNIEXPORT jlong JNICALL Java_net_java_games_input_LinuxEventDevice_nOpen(JNIEnv
 	return fd;
 }
 
+JNIEXPORT void JNICALL Java_net_java_games_input_LinuxEventDevice_nSetMonotonicClock(JNIEnv *env, jclass unused, jlong fd_address) {
+#ifdef EVIOCSCLOCKID
+	int fd = (int)fd_address;
+	int clock_id = CLOCK_MONOTONIC;
+	if (ioctl(fd, EVIOCSCLOCKID, &clock_id) == -1)
+		throwIOException(env, "Failed to set device clock (%d)\n", errno);
+#else
+	throwIOException(env, "Device clocks are not supported\n");
+#endif
+}
+
 JNIEXPORT void JNICALL Java_net_java_games_input_LinuxEventDevice_nClose(JNIEnv *env, jclass unused, jlong fd_address) {
 	int fd = (int)fd_address;
 	int result = close(fd);
@@ -80,6 +93,19 @@ JNIEXPORT jstring JNICALL Java_net_java_games_input_LinuxEventDevice_nGetName(JN
 	return jstr;
 }
 
+JNIEXPORT jstring JNICALL Java_net_java_games_input_LinuxEventDevice_nGetPhys(JNIEnv *env, jclass unused, jlong fd_address) {
+	int fd = (int)fd_address;
+	char device_phys[BUFFER_SIZE];
+
+	memset(device_phys, 0, sizeof(device_phys));
+	/* Virtual devices have no physical path */
+	if (ioctl(fd, EVIOCGPHYS(BUFFER_SIZE - 1), device_phys) == -1 && errno != ENOENT) {
+		throwIOException(env, "Failed to get device physical path (%d)\n", errno);
+		return NULL;
+	}
+	return (*env)->NewStringUTF(env, device_phys);
+}
+
 JNIEXPORT void JNICALL Java_net_java_games_input_LinuxEventDevice_nGetKeyStates(JNIEnv *env, jclass unused, jlong fd_address, jbyteArray bits_array) {
 	int fd = (int)fd_address;
 	jsize len = (*env)->GetArrayLength(env, bits_array);
@@ -92,6 +118,32 @@ JNIEXPORT void JNICALL Java_net_java_games_input_LinuxEventDevice_nGetKeyStates(
 		throwIOException(env, "Failed to get device key states (%d)\n", errno);
 }
 
+JNIEXPORT void JNICALL Java_net_java_games_input_LinuxEventDevice_nSetEventMask(JNIEnv *env, jclass unused, jlong fd_address, jint type, jbyteArray bits_array) {
+#ifdef EVIOCSMASK
+	int fd = (int)fd_address;
+	jsize len = (*env)->GetArrayLength(env, bits_array);
+	jbyte *bits = (*env)->GetByteArrayElements(env, bits_array, NULL);
+	if (bits == NULL)
+		return;
+	struct input_mask mask;
+	mask.type = type;
+	mask.codes_size = len;
+	mask.codes_ptr = (__u64)(unsigned long)bits;
+	int res = ioctl(fd, EVIOCSMASK, &mask);
+	(*env)->ReleaseByteArrayElements(env, bits_array, bits, JNI_ABORT);
+	if (res == -1)
+		throwIOException(env, "Failed to set device event mask (%d)\n", errno);
+#else
+	throwIOException(env, "Device event masks are not supported\n");
+#endif
+}
+
+JNIEXPORT void JNICALL Java_net_java_games_input_LinuxEventDevice_nGrab(JNIEnv *env, jclass unused, jlong fd_address, jboolean grab) {
+	int fd = (int)fd_address;
+	if (ioctl(fd, EVIOCGRAB, grab ? 1 : 0) == -1)
+		throwIOException(env, "Failed to %s device (%d)\n", grab ? "grab" : "release", errno);
+}
+
 JNIEXPORT jint JNICALL Java_net_java_games_input_LinuxEventDevice_nGetVersion(JNIEnv *env, jclass unused, jlong fd_address) {
 	int fd = (int)fd_address;
 	int version;
@@ -172,23 +224,48 @@ JNIEXPORT void JNICALL Java_net_java_games_input_LinuxEventDevice_nGetAbsInfo(JN
 	(*env)->CallVoidMethod(env, abs_info_return, abs_info_set, (jint)abs_info.value, (jint)abs_info.minimum, (jint)abs_info.maximum, (jint)abs_info.fuzz, (jint)abs_info.flat);
 }
 
-JNIEXPORT jboolean JNICALL Java_net_java_games_input_LinuxEventDevice_nGetNextEvent(JNIEnv *env, jclass unused, jlong fd_address, jobject linux_event_return) {
+/* Must match EVENT_RECORD_SIZE and the record layout in LinuxEventDevice */
+#define EVENT_RECORD_SIZE 24
+#define MAX_EVENT_BATCH 64
+
+JNIEXPORT jint JNICALL Java_net_java_games_input_LinuxEventDevice_nReadEvents(JNIEnv *env, jclass unused, jlong fd_address, jobject buffer, jint max_events) {
 	int fd = (int)fd_address;
-	jclass linux_event_class = (*env)->GetObjectClass(env, linux_event_return);
-	if (linux_event_class == NULL)
-		return JNI_FALSE;
-	jmethodID linux_event_set = (*env)->GetMethodID(env, linux_event_class, "set", "(JJIII)V");
-	if (linux_event_set == NULL)
-		return JNI_FALSE;
-	struct input_event event;
-	if (read(fd, &event, sizeof(struct input_event)) == -1) {
+	char *records = (*env)->GetDirectBufferAddress(env, buffer);
+	if (records == NULL) {
+		throwIOException(env, "Event buffer is not a direct buffer\n");
+		return 0;
+	}
+	jlong capacity = (*env)->GetDirectBufferCapacity(env, buffer);
+	if (max_events > MAX_EVENT_BATCH)
+		max_events = MAX_EVENT_BATCH;
+	if (max_events > capacity/EVENT_RECORD_SIZE)
+		max_events = capacity/EVENT_RECORD_SIZE;
+	struct input_event events[MAX_EVENT_BATCH];
+	ssize_t num_bytes = read(fd, events, max_events*sizeof(struct input_event));
+	if (num_bytes == -1) {
 		if (errno == EAGAIN)
-			return JNI_FALSE;
-		throwIOException(env, "Failed to read next device event (%d)\n", errno);
-		return JNI_FALSE;
+			return 0;
+		throwIOException(env, "Failed to read device events (%d)\n", errno);
+		return 0;
+	}
+	int num_events = num_bytes/sizeof(struct input_event);
+	int i;
+	/* Pack the events into fixed size native order records so that the
+	 * layout doesn't depend on the size of struct timeval */
+	for (i = 0; i < num_events; i++) {
+		char *record = records + i*EVENT_RECORD_SIZE;
+		jlong seconds = events[i].time.tv_sec;
+		jlong microseconds = events[i].time.tv_usec;
+		jshort type = events[i].type;
+		jshort code = events[i].code;
+		jint value = events[i].value;
+		memcpy(record, &seconds, 8);
+		memcpy(record + 8, &microseconds, 8);
+		memcpy(record + 16, &type, 2);
+		memcpy(record + 18, &code, 2);
+		memcpy(record + 20, &value, 4);
 	}
-	(*env)->CallVoidMethod(env, linux_event_return, linux_event_set, (jlong)event.time.tv_sec, (jlong)event.time.tv_usec, (jint)event.type, (jint)event.code, (jint)event.value);
-	return JNI_TRUE;
+	return num_events;
 }
 
 JNIEXPORT jint JNICALL Java_net_java_games_input_LinuxEventDevice_nUploadRumbleEffect(JNIEnv *env, jclass unused, jlong fd_address, jint id, jint direction, jint trigger_button, jint trigger_interval, jint replay_length, jint replay_delay, jint strong_magnitude, jint weak_magnitude) {
@@ -0,0 +1,123 @@
+/*
+ * %W% %E%
+ *
+ * Copyright 2002 Sun Microsystems, Inc. All rights reserved.
+ * SUN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+/*****************************************************************************
+* Copyright (c) 2003 Sun Microsystems, Inc.  All Rights Reserved.
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* - Redistribution of source code must retain the above copyright notice,
+*   this list of conditions and the following disclaimer.
+*
+* - Redistribution in binary form must reproduce the above copyright notice,
+*   this list of conditions and the following disclaimer in the documentation
+*   and/or other materails provided with the distribution.
+*
+* Neither the name Sun Microsystems, Inc. or the names of the contributors
+* may be used to endorse or promote products derived from this software
+* without specific prior written permission.
+*
+* This software is provided "AS IS," without a warranty of any kind.
+* ALL EXPRESS OR IMPLIED CONDITIONS, REPRESENTATIONS AND WARRANTIES, INCLUDING
+* ANY IMPLIED WARRANT OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE OR
+* NON-INFRINGEMEN, ARE HEREBY EXCLUDED.  SUN MICROSYSTEMS, INC. ("SUN") AND
+* ITS LICENSORS SHALL NOT BE LIABLE FOR ANY DAMAGES SUFFERED BY LICENSEE AS
+* A RESULT OF USING, MODIFYING OR DESTRIBUTING THIS SOFTWARE OR ITS 
+* DERIVATIVES.  IN NO EVENT WILL SUN OR ITS LICENSORS BE LIABLE FOR ANY LOST
+* REVENUE, PROFIT OR DATA, OR FOR DIRECT, INDIRECT, SPECIAL, CONSEQUENTIAL,
+* INCIDENTAL OR PUNITIVE DAMAGES.  HOWEVER CAUSED AND REGARDLESS OF THE THEORY
+* OF LIABILITY, ARISING OUT OF THE USE OF OUR INABILITY TO USE THIS SOFTWARE,
+* EVEN IF SUN HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGES.
+*
+* You acknowledge that this software is not designed or intended for us in
+* the design, construction, operation or maintenance of any nuclear facility
+*
+*****************************************************************************/
+
+#include <sys/types.h>
+#include <sys/epoll.h>
+#include <sys/eventfd.h>
+#include <stdint.h>
+#include <unistd.h>
+#include <errno.h>
+#include "util.h"
+#include "net_java_games_input_LinuxEventReader.h"
+
+#define MAX_READY_EVENTS 64
+
+JNIEXPORT jlong JNICALL Java_net_java_games_input_LinuxEventReader_nCreate(JNIEnv *env, jclass unused) {
+	int epoll_fd = epoll_create1(EPOLL_CLOEXEC);
+	if (epoll_fd == -1)
+		throwIOException(env, "Failed to create epoll instance (%d)\n", errno);
+	return epoll_fd;
+}
+
+JNIEXPORT jlong JNICALL Java_net_java_games_input_LinuxEventReader_nCreateWakeup(JNIEnv *env, jclass unused) {
+	int wakeup_fd = eventfd(0, EFD_CLOEXEC | EFD_NONBLOCK);
+	if (wakeup_fd == -1)
+		throwIOException(env, "Failed to create wakeup event (%d)\n", errno);
+	return wakeup_fd;
+}
+
+JNIEXPORT void JNICALL Java_net_java_games_input_LinuxEventReader_nAdd(JNIEnv *env, jclass unused, jlong epoll_fd_address, jlong fd_address, jint token) {
+	int epoll_fd = (int)epoll_fd_address;
+	int fd = (int)fd_address;
+	struct epoll_event event;
+	event.events = EPOLLIN;
+	event.data.u64 = 0;
+	event.data.u32 = (uint32_t)token;
+	if (epoll_ctl(epoll_fd, EPOLL_CTL_ADD, fd, &event) == -1)
+		throwIOException(env, "Failed to add device to epoll instance (%d)\n", errno);
+}
+
+JNIEXPORT void JNICALL Java_net_java_games_input_LinuxEventReader_nRemove(JNIEnv *env, jclass unused, jlong epoll_fd_address, jlong fd_address) {
+	int epoll_fd = (int)epoll_fd_address;
+	int fd = (int)fd_address;
+	struct epoll_event event;
+	if (epoll_ctl(epoll_fd, EPOLL_CTL_DEL, fd, &event) == -1)
+		throwIOException(env, "Failed to remove device from epoll instance (%d)\n", errno);
+}
+
+JNIEXPORT jint JNICALL Java_net_java_games_input_LinuxEventReader_nWait(JNIEnv *env, jclass unused, jlong epoll_fd_address, jintArray tokens_return) {
+	int epoll_fd = (int)epoll_fd_address;
+	struct epoll_event events[MAX_READY_EVENTS];
+	jint tokens[MAX_READY_EVENTS];
+	int max_events = (*env)->GetArrayLength(env, tokens_return);
+	if (max_events > MAX_READY_EVENTS)
+		max_events = MAX_READY_EVENTS;
+	int num_events = epoll_wait(epoll_fd, events, max_events, -1);
+	if (num_events == -1) {
+		if (errno == EINTR)
+			return 0;
+		throwIOException(env, "Failed to wait for device events (%d)\n", errno);
+		return 0;
+	}
+	int i;
+	for (i = 0; i < num_events; i++)
+		tokens[i] = (jint)events[i].data.u32;
+	(*env)->SetIntArrayRegion(env, tokens_return, 0, num_events, tokens);
+	return num_events;
+}
+
+JNIEXPORT void JNICALL Java_net_java_games_input_LinuxEventReader_nWakeup(JNIEnv *env, jclass unused, jlong wakeup_fd_address) {
+	int wakeup_fd = (int)wakeup_fd_address;
+	uint64_t count = 1;
+	if (write(wakeup_fd, &count, sizeof(count)) == -1 && errno != EAGAIN)
+		throwIOException(env, "Failed to signal wakeup event (%d)\n", errno);
+}
+
+JNIEXPORT void JNICALL Java_net_java_games_input_LinuxEventReader_nClearWakeup(JNIEnv *env, jclass unused, jlong wakeup_fd_address) {
+	int wakeup_fd = (int)wakeup_fd_address;
+	uint64_t count;
+	if (read(wakeup_fd, &count, sizeof(count)) == -1 && errno != EAGAIN)
+		throwIOException(env, "Failed to clear wakeup event (%d)\n", errno);
+}
+
+JNIEXPORT void JNICALL Java_net_java_games_input_LinuxEventReader_nClose(JNIEnv *env, jclass unused, jlong fd_address) {
+	int fd = (int)fd_address;
+	if (close(fd) == -1)
+		throwIOException(env, "Failed to close file descriptor (%d)\n", errno);
+}
@@ -138,21 +138,27 @@ JNIEXPORT jcharArray JNICALL Java_net_java_games_input_LinuxJoystickDevice_nGetB
 	return button_map_array;
 }
 
-JNIEXPORT jboolean JNICALL Java_net_java_games_input_LinuxJoystickDevice_nGetNextEvent(JNIEnv *env, jclass unused, jlong fd_address, jobject event_return) {
+JNIEXPORT jint JNICALL Java_net_java_games_input_LinuxJoystickDevice_nReadEvents(JNIEnv *env, jclass unused, jlong fd_address, jobject buffer, jint max_events) {
 	int fd = (int)fd_address;
-	jclass event_class = (*env)->GetObjectClass(env, event_return);
-	if (event_class == NULL)
-		return JNI_FALSE;
-	jmethodID event_set = (*env)->GetMethodID(env, event_class, "set", "(JIII)V");
-	if (event_set == NULL)
-		return JNI_FALSE;
-	struct js_event event;
-	if (read(fd, &event, sizeof(event)) == -1) {
+	struct js_event *events = (*env)->GetDirectBufferAddress(env, buffer);
+	if (events == NULL) {
+		throwIOException(env, "Event buffer is not a direct buffer\n");
+		return 0;
+	}
+	if (max_events < 0) {
+		throwIOException(env, "Invalid event count (%d)\n", max_events);
+		return 0;
+	}
+	jlong capacity_events = (*env)->GetDirectBufferCapacity(env, buffer)/(jlong)sizeof(struct js_event);
+	if (max_events > capacity_events)
+		max_events = (jint)capacity_events;
+	/* struct js_event has a fixed 8 byte layout, so it is read straight into the buffer */
+	ssize_t num_bytes = read(fd, events, max_events*sizeof(struct js_event));
+	if (num_bytes == -1) {
 		if (errno == EAGAIN)
-			return JNI_FALSE;
-		throwIOException(env, "Failed to read next device event (%d)\n", errno);
-		return JNI_FALSE;
+			return 0;
+		throwIOException(env, "Failed to read device events (%d)\n", errno);
+		return 0;
 	}
-	(*env)->CallVoidMethod(env, event_return, event_set, (jlong)event.time, (jint)event.value, (jint)event.type, (jint)event.number);
-	return JNI_TRUE;
+	return num_bytes/sizeof(struct js_event);
 }
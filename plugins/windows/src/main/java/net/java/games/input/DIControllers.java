@@ -45,24 +45,25 @@ import java.io.IOException;
  * @version 1.0
  */
 final class DIControllers {
-    private final static DIDeviceObjectData di_event = new DIDeviceObjectData();
-
-    /* synchronized to protect di_event */
-    public static synchronized boolean getNextDeviceEvent(Event event, IDirectInputDevice device) throws IOException {
-        if (!device.getNextEvent(di_event))
-            return false;
-        DIDeviceObject object = device.mapEvent(di_event);
-        DIComponent component = device.mapObject(object);
-        if (component == null)
-            return false;
-        int event_value;
-        if (object.isRelative()) {
-            event_value = object.getRelativeEventValue(di_event.getData());
-        } else {
-            event_value = di_event.getData();
+    /* Synchronized on the device to protect its scratch event */
+    public static boolean getNextDeviceEvent(Event event, IDirectInputDevice device) throws IOException {
+        synchronized (device) {
+            DIDeviceObjectData di_event = device.getScratchData();
+            if (!device.getNextEvent(di_event))
+                return false;
+            DIDeviceObject object = device.mapEvent(di_event);
+            DIComponent component = device.mapObject(object);
+            if (component == null)
+                return false;
+            int event_value;
+            if (object.isRelative()) {
+                event_value = object.getRelativeEventValue(di_event.getData());
+            } else {
+                event_value = di_event.getData();
+            }
+            event.set(component, component.getDeviceObject().convertValue(event_value), di_event.getNanos());
+            return true;
         }
-        event.set(component, component.getDeviceObject().convertValue(event_value), di_event.getNanos());
-        return true;
     }
 
     public static float poll(Component component, DIDeviceObject object) throws IOException {
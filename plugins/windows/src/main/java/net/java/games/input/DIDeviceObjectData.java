@@ -49,6 +49,8 @@ final class DIDeviceObjectData {
     private int data;
     private int millis;
     private int sequence;
+    /* Event time in the System.nanoTime() time base, set by the device after reading */
+    private long nanos;
 
     private void set(int format_offset, int data, int millis, int sequence) {
         this.format_offset = format_offset;
@@ -59,6 +61,16 @@ final class DIDeviceObjectData {
 
     public final void set(DIDeviceObjectData other) {
         set(other.format_offset, other.data, other.millis, other.sequence);
+        this.nanos = other.nanos;
+    }
+
+    /* The GetTickCount() time of the event */
+    public final int getMillis() {
+        return millis;
+    }
+
+    public final void setNanos(long nanos) {
+        this.nanos = nanos;
     }
 
     public final int getData() {
@@ -70,7 +82,7 @@ final class DIDeviceObjectData {
     }
 
     public final long getNanos() {
-        return millis * 1000000L;
+        return nanos;
     }
 }
 
@@ -192,9 +192,12 @@ final class IDirectInputDevice {
     private final int[] device_state;
     private final Map<DIDeviceObject, DIComponent> object_to_component = new HashMap<>();
     private final boolean axes_in_relative_mode;
+    /* Scratch data, guarded by the device monitor */
+    private final DIDeviceObjectData scratch_data = new DIDeviceObjectData();
+    private final EventClock event_clock = new EventClock();
 
     private boolean released;
-    private DataQueue queue;
+    private DataQueue<DIDeviceObjectData> queue;
 
     private int button_counter;
     private int current_format_offset;
@@ -345,12 +348,35 @@ final class IDirectInputDevice {
         poll();
         getDeviceState(device_state);
         queue.compact();
+        int first_new_event = queue.position();
         getDeviceData(queue);
+        convertEventTimes(queue, first_new_event);
         queue.flip();
     }
 
+    /* DirectInput stamps events with GetTickCount() milliseconds, convert them to System.nanoTime() */
+    private void convertEventTimes(DataQueue<DIDeviceObjectData> queue, int first_new_event) {
+        int end = queue.position();
+        if (end == first_new_event)
+            return;
+        DIDeviceObjectData[] elements = queue.getElements();
+        event_clock.update(elements[end - 1].getMillis(), System.nanoTime());
+        for (int i = first_new_event; i < end; i++) {
+            DIDeviceObjectData data = elements[i];
+            data.setNanos(event_clock.toNanos(data.getMillis()));
+        }
+    }
+
+    /**
+     * Returns the data object used by {@link DIControllers#getNextDeviceEvent}.
+     * Callers must hold the device monitor while using it.
+     */
+    final DIDeviceObjectData getScratchData() {
+        return scratch_data;
+    }
+
     public synchronized final boolean getNextEvent(DIDeviceObjectData data) {
-        DIDeviceObjectData next_event = (DIDeviceObjectData) queue.get();
+        DIDeviceObjectData next_event = queue.get();
         if (next_event == null)
             return false;
         data.set(next_event);
@@ -380,7 +406,7 @@ final class IDirectInputDevice {
             throw new IOException("Failed to unAcquire device (" + Integer.toHexString(res) + ")");
     }
 
-    private boolean getDeviceData(DataQueue queue) throws IOException {
+    private boolean getDeviceData(DataQueue<DIDeviceObjectData> queue) throws IOException {
         int res = nGetDeviceData(address, 0, queue, queue.getElements(), queue.position(), queue.remaining());
         if (res != DI_OK && res != DI_BUFFEROVERFLOW) {
             if (res == DIERR_NOTACQUIRED) {
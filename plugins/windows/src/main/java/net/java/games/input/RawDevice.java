@@ -113,19 +113,22 @@ final class RawDevice {
 
     private static native RawDeviceInfo nGetInfo(RawDevice device, long handle) throws IOException;
 
-    /* Careful, this is called from the event queue thread */
+    /* Careful, this is called from the event queue thread. Events are handled
+     * as they arrive, so they are stamped with the current System.nanoTime()
+     * rather than converting their GetMessageTime() milliseconds
+     */
     public final synchronized void addMouseEvent(long millis, int flags, int button_flags, int button_data, long raw_buttons, long last_x, long last_y, long extra_information) {
         if (mouse_events.hasRemaining()) {
             RawMouseEvent event = mouse_events.get();
-            event.set(millis, flags, button_flags, button_data, raw_buttons, last_x, last_y, extra_information);
+            event.set(System.nanoTime(), flags, button_flags, button_data, raw_buttons, last_x, last_y, extra_information);
         }
     }
 
-    /* Careful, this is called from the event queue thread */
+    /* Careful, this is called from the event queue thread, see addMouseEvent */
     public final synchronized void addKeyboardEvent(long millis, int make_code, int flags, int vkey, int message, long extra_information) {
         if (keyboard_events.hasRemaining()) {
             RawKeyboardEvent event = keyboard_events.get();
-            event.set(millis, make_code, flags, vkey, message, extra_information);
+            event.set(System.nanoTime(), make_code, flags, vkey, message, extra_information);
         }
     }
 
@@ -45,15 +45,15 @@ package net.java.games.input;
  * @version 1.0
  */
 final class RawKeyboardEvent {
-    private long millis;
+    private long nanos;
     private int make_code;
     private int flags;
     private int vkey;
     private int message;
     private long extra_information;
 
-    public final void set(long millis, int make_code, int flags, int vkey, int message, long extra_information) {
-        this.millis = millis;
+    public final void set(long nanos, int make_code, int flags, int vkey, int message, long extra_information) {
+        this.nanos = nanos;
         this.make_code = make_code;
         this.flags = flags;
         this.vkey = vkey;
@@ -62,7 +62,7 @@ final class RawKeyboardEvent {
     }
 
     public final void set(RawKeyboardEvent event) {
-        set(event.millis, event.make_code, event.flags, event.vkey, event.message, event.extra_information);
+        set(event.nanos, event.make_code, event.flags, event.vkey, event.message, event.extra_information);
     }
 
     public final int getVKey() {
@@ -74,6 +74,6 @@ final class RawKeyboardEvent {
     }
 
     public final long getNanos() {
-        return millis * 1000000L;
+        return nanos;
     }
 }
@@ -50,7 +50,7 @@ final class RawMouseEvent {
      */
     private final static int WHEEL_SCALE = 120;
 
-    private long millis;
+    private long nanos;
     private int flags;
     private int button_flags;
     private int button_data;
@@ -59,8 +59,8 @@ final class RawMouseEvent {
     private long last_y;
     private long extra_information;
 
-    public final void set(long millis, int flags, int button_flags, int button_data, long raw_buttons, long last_x, long last_y, long extra_information) {
-        this.millis = millis;
+    public final void set(long nanos, int flags, int button_flags, int button_data, long raw_buttons, long last_x, long last_y, long extra_information) {
+        this.nanos = nanos;
         this.flags = flags;
         this.button_flags = button_flags;
         this.button_data = button_data;
@@ -71,7 +71,7 @@ final class RawMouseEvent {
     }
 
     public final void set(RawMouseEvent event) {
-        set(event.millis, event.flags, event.button_flags, event.button_data, event.raw_buttons, event.last_x, event.last_y, event.extra_information);
+        set(event.nanos, event.flags, event.button_flags, event.button_data, event.raw_buttons, event.last_x, event.last_y, event.extra_information);
     }
 
     public final int getWheelDelta() {
@@ -103,7 +103,7 @@ final class RawMouseEvent {
     }
 
     public final long getNanos() {
-        return millis * 1000000L;
+        return nanos;
     }
 }
 
@@ -43,7 +43,7 @@ public class WinTabButtonComponent extends WinTabComponent {
 
             //Generate an event
             newEvent = new Event();
-            newEvent.set(this, newValue, packet.PK_TIME * 1000);
+            newEvent.set(this, newValue, packet.nanos);
             return newEvent;
         }
 
@@ -189,7 +189,7 @@ public class WinTabComponent extends AbstractComponent {
 
             //Generate an event
             Event newEvent = new Event();
-            newEvent.set(this, newValue, packet.PK_TIME * 1000);
+            newEvent.set(this, newValue, packet.nanos);
             return newEvent;
         }
 
@@ -32,6 +32,7 @@ class WinTabContext {
     private final DummyWindow window;
     private long hCTX;
     private Controller[] controllers;
+    private final EventClock event_clock = new EventClock();
 
 
     public WinTabContext(DummyWindow window) {
@@ -74,6 +75,12 @@ class WinTabContext {
 
     public synchronized void processEvents() {
         WinTabPacket[] packets = nGetPackets(hCTX);
+        if (packets.length > 0) {
+            // PK_TIME is in GetTickCount() milliseconds
+            event_clock.update(packets[packets.length - 1].PK_TIME, System.nanoTime());
+            for (WinTabPacket packet : packets)
+                packet.nanos = event_clock.toNanos(packet.PK_TIME);
+        }
         for (WinTabPacket packet : packets) {
             // TODO I can't seem to find a way to identify which device the packet is for
             // This is not good.
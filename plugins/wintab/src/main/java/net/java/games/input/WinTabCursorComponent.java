@@ -40,11 +40,11 @@ public class WinTabCursorComponent extends WinTabComponent {
         if (packet.PK_CURSOR == index && lastKnownValue == 0) {
             lastKnownValue = 1;
             newEvent = new Event();
-            newEvent.set(this, lastKnownValue, packet.PK_TIME * 1000);
+            newEvent.set(this, lastKnownValue, packet.nanos);
         } else if (packet.PK_CURSOR != index && lastKnownValue == 1) {
             lastKnownValue = 0;
             newEvent = new Event();
-            newEvent.set(this, lastKnownValue, packet.PK_TIME * 1000);
+            newEvent.set(this, lastKnownValue, packet.nanos);
         }
 
         return newEvent;
@@ -27,6 +27,8 @@ package net.java.games.input;
 
 class WinTabPacket {
     long PK_TIME;
+    /* PK_TIME converted to the System.nanoTime() time base */
+    long nanos;
     int PK_X, PK_Y, PK_Z, PK_BUTTONS, PK_NORMAL_PRESSURE, PK_TANGENT_PRESSURE, PK_CURSOR;
     int PK_ORIENTATION_ALT, PK_ORIENTATION_AZ, PK_ORIENTATION_TWIST;
 